@@ -0,0 +1,111 @@
+package com.dockermanager.controller;
+
+import com.dockermanager.model.Project;
+import com.dockermanager.service.LogRingBuffer;
+import javafx.animation.AnimationTimer;
+import javafx.fxml.FXML;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.ToggleButton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogConsoleController {
+    private static final int MAX_LINES_PER_PULSE = 500;
+    private static final int MAX_VISIBLE_LINES = 5000;
+
+    @FXML private Label titleLabel;
+    @FXML private Label statsLabel;
+    @FXML private CheckBox autoScrollCheckBox;
+    @FXML private ToggleButton pauseButton;
+    @FXML private TextArea consoleArea;
+
+    private final List<String> batch = new ArrayList<>();
+    private LogRingBuffer buffer;
+    private long cursor;
+    private int visibleLines;
+    private long totalLines;
+    private AnimationTimer drainTimer;
+
+    public void initialize() {
+        // Drain once per pulse so a chatty build costs one UI update per frame
+        drainTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drain();
+            }
+        };
+    }
+
+    /**
+     * Start following the live log of a project
+     * @param project the project to follow
+     */
+    public void attach(Project project) {
+        buffer = LogRingBuffer.forProject(project.getId());
+        cursor = buffer.getOldestSequence();
+        titleLabel.setText("Live Console - " + project.getName());
+        drainTimer.start();
+    }
+
+    /**
+     * Stop following, called when the window closes
+     */
+    public void detach() {
+        drainTimer.stop();
+    }
+
+    private void drain() {
+        if (buffer == null || pauseButton.isSelected()) {
+            return;
+        }
+
+        batch.clear();
+        cursor = buffer.drainTo(cursor, MAX_LINES_PER_PULSE, batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (String line : batch) {
+            text.append(line).append('\n');
+        }
+        consoleArea.appendText(text.toString());
+        visibleLines += batch.size();
+        totalLines += batch.size();
+
+        trimVisibleLines();
+
+        if (autoScrollCheckBox.isSelected()) {
+            consoleArea.positionCaret(consoleArea.getLength());
+            consoleArea.setScrollTop(Double.MAX_VALUE);
+        }
+        statsLabel.setText(totalLines + " lines");
+    }
+
+    private void trimVisibleLines() {
+        int excess = visibleLines - MAX_VISIBLE_LINES;
+        if (excess <= 0) {
+            return;
+        }
+
+        String text = consoleArea.getText();
+        int end = -1;
+        for (int i = 0; i < excess; i++) {
+            end = text.indexOf('\n', end + 1);
+            if (end < 0) {
+                return;
+            }
+        }
+        consoleArea.deleteText(0, end + 1);
+        visibleLines -= excess;
+    }
+
+    @FXML
+    private void handleClear() {
+        consoleArea.clear();
+        visibleLines = 0;
+    }
+}
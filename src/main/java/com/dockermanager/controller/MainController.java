@@ -3,9 +3,12 @@ package com.dockermanager.controller;
 import com.dockermanager.model.Project;
 import com.dockermanager.model.ProjectType;
 import com.dockermanager.service.*;
+import com.dockermanager.util.TemplateRegistry;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -17,9 +20,15 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MainController {
     private static final Logger logger = LoggerFactory.getLogger(MainController.class);
+    private static final long SHUTDOWN_STOP_TIMEOUT_SECONDS = 45;
+    private static final String PORT_REGISTRY_FILE = "ports.json";
+    private static final String METRICS_FILE = "metrics.prom";
 
     @FXML private Label dockerStatusLabel;
     @FXML private VBox projectsContainer;
@@ -34,33 +43,67 @@ public class MainController {
     @FXML private TextField portField;
     @FXML private TextField memoryLimitField;
     @FXML private TextField cpuLimitField;
+    @FXML private CheckBox buildKitCheckBox;
+    @FXML private CheckBox fastStartCheckBox;
+    @FXML private ChoiceBox<Project.ReadinessCheck> readinessCheckChoice;
+    @FXML private TextField readinessTimeoutField;
+    @FXML private Label lastStartLabel;
+    @FXML private TextField logMaxFilesField;
+    @FXML private TextField logMaxSizeField;
+    @FXML private TextField logMaxAgeField;
+    @FXML private CheckBox logCompressCheckBox;
     @FXML private VBox envVarsContainer;
     @FXML private VBox volumeMountsContainer;
     @FXML private MenuItem addProjectMenuItem;
+    @FXML private MenuItem importWorkspaceMenuItem;
+    @FXML private Label importStatusLabel;
 
     // Services
     private DockerService dockerService;
     private ProjectDetectionService detectionService;
     private PortManagerService portManager;
     private ConfigService configService;
+    private LifecycleExecutor lifecycleExecutor;
+    private BatchLifecycleService batchService;
+    private WorkspaceImportService importService;
+    private ProjectWatcherService projectWatcher;
+    private MetricsExporter metricsExporter;
 
     // Data
     private List<Project> projects;
     private Project selectedProject;
     private Map<String, ProjectItemController> projectControllers;
+    private Map<String, Stage> consoleWindows;
+    private boolean shutDown;
 
     public void initialize() {
         logger.info("Initializing MainController");
         
+        readinessCheckChoice.getItems().setAll(Project.ReadinessCheck.values());
+        
         // Initialize services
-        dockerService = new DockerService();
-        detectionService = new ProjectDetectionService();
-        portManager = new PortManagerService();
         configService = new ConfigService();
+        portManager = new PortManagerService(
+                new PortRegistry(configService.getConfigDirectory().resolve(PORT_REGISTRY_FILE)));
+        ConfigService.Preferences preferences = configService.loadPreferences();
+        metricsExporter = new MetricsExporter(MetricsRegistry.getInstance(),
+                configService.getConfigDirectory().resolve(METRICS_FILE));
+        metricsExporter.startEndpoint(preferences.getMetricsPort());
+        dockerService = new DockerService(portManager);
+        dockerService.setBuildParallelism(preferences.getMaxParallelBuilds());
+        lifecycleExecutor = new LifecycleExecutor();
+        batchService = new BatchLifecycleService(dockerService, lifecycleExecutor);
+        detectionService = new ProjectDetectionService();
+        importService = new WorkspaceImportService(detectionService, portManager);
+        projectWatcher = new ProjectWatcherService(detectionService, this::handleProjectTypeChanged);
+        
+        // Compile Dockerfile templates and user overrides once, up front
+        TemplateRegistry.getInstance();
         
         // Initialize data structures
         projects = new ArrayList<>();
         projectControllers = new HashMap<>();
+        consoleWindows = new HashMap<>();
         
         // Update Docker status
         updateDockerStatus();
@@ -68,6 +111,9 @@ public class MainController {
         // Load saved projects
         loadProjects();
         
+        // Track crashes and external starts/stops pushed by the Docker daemon
+        dockerService.startEventMonitor(this::handleContainerEvent);
+        
         // Show no selection message initially
         showNoProjectSelected();
     }
@@ -89,14 +135,37 @@ public class MainController {
         projects = configService.loadProjects();
         logger.info("Loaded {} projects", projects.size());
         
-        // Re-assign ports for loaded projects
+        // Pick up containers that kept running while the app was closed
+        Map<String, DockerService.ProjectContainer> running = dockerService.listRunningProjectContainers();
         for (Project project : projects) {
-            if (project.getPort() > 0) {
-                portManager.reservePort(project.getPort());
+            DockerService.ProjectContainer container = running.get(project.getId());
+            if (container != null) {
+                project.setStatus(Project.ProjectStatus.RUNNING);
+                project.setContainerId(container.getContainerId());
+                project.setServiceContainers(new LinkedHashMap<>(container.getServiceContainers()));
+            }
+        }
+        
+        // Re-assign ports for loaded projects in one pass
+        List<String> conflicts = portManager.reconcile(projects, running);
+        
+        for (Project project : projects) {
+            projectWatcher.watch(project);
+            // Create fast-start containers ahead of the first start
+            if (project.getDockerOptions().isFastStart()) {
+                lifecycleExecutor.submit(project, "prewarm", () -> {
+                    dockerService.prewarm(project);
+                    return null;
+                });
             }
         }
         
         refreshProjectsList();
+        
+        if (!conflicts.isEmpty()) {
+            showWarning("Port Conflicts", "Some projects cannot start on their configured port:\n\n"
+                    + String.join("\n", conflicts));
+        }
     }
 
     private void refreshProjectsList() {
@@ -122,6 +191,8 @@ public class MainController {
             controller.setOnSelect(this::handleSelectProject);
             controller.setOnRebuild(this::handleRebuildProject);
             controller.setOnViewLogs(this::handleViewLogs);
+            controller.setOnOpenConsole(this::handleOpenConsole);
+            controller.setOnCancel(this::handleCancelOperation);
             
             // Now set the project (this will set up the click handler with callbacks)
             controller.setProject(project);
@@ -148,6 +219,58 @@ public class MainController {
         }
     }
 
+    @FXML
+    private void handleImportWorkspace() {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Select Workspace Directory");
+        
+        Stage stage = (Stage) projectsContainer.getScene().getWindow();
+        File workspace = chooser.showDialog(stage);
+        if (workspace == null) {
+            return;
+        }
+        
+        Set<String> existingPaths = new HashSet<>();
+        for (Project project : projects) {
+            existingPaths.add(project.getPath());
+        }
+        
+        importWorkspaceMenuItem.setDisable(true);
+        importStatusLabel.setText("Scanning " + workspace.getName() + "...");
+        
+        // Scanning threads report far more often than the UI needs to redraw
+        AtomicReference<WorkspaceImportService.Progress> latestProgress = new AtomicReference<>();
+        importService.scan(workspace, existingPaths, progress -> {
+            if (latestProgress.getAndSet(progress) == null) {
+                Platform.runLater(() -> {
+                    WorkspaceImportService.Progress current = latestProgress.getAndSet(null);
+                    importStatusLabel.setText("Scanning " + workspace.getName() + ": "
+                            + current.getFoundProjects() + " projects in "
+                            + current.getScannedDirectories() + " directories");
+                });
+            }
+        }).whenComplete((found, error) -> Platform.runLater(() -> {
+            importWorkspaceMenuItem.setDisable(false);
+            importStatusLabel.setText("");
+            if (error != null) {
+                showError("Import Failed", "Failed to scan workspace: " + rootMessage(error));
+                return;
+            }
+            
+            configService.addProjects(found, projects);
+            for (Project project : found) {
+                addProjectToUI(project);
+                projectWatcher.watch(project);
+            }
+            
+            if (found.isEmpty()) {
+                showInfo("Import Workspace", "No new projects found in " + workspace.getAbsolutePath());
+            } else {
+                showInfo("Import Workspace", "Imported " + found.size() + " projects from " + workspace.getAbsolutePath());
+            }
+        }));
+    }
+
     private void addNewProject(File directory) {
         String path = directory.getAbsolutePath();
         
@@ -175,12 +298,12 @@ public class MainController {
         
         // Assign port
         int defaultPort = detectionService.detectDefaultPort(path, type);
-        int assignedPort = portManager.findAvailablePort(defaultPort);
+        int assignedPort = portManager.findAvailablePort(project.getId(), defaultPort, project.getPortCount());
         project.setPort(assignedPort);
         
         // Add to list
-        projects.add(project);
-        configService.saveProjects(projects);
+        configService.addProject(project, projects);
+        projectWatcher.watch(project);
         
         // Add to UI
         addProjectToUI(project);
@@ -198,6 +321,17 @@ public class MainController {
             return;
         }
         
+        // Ignore repeated clicks while an operation is still in flight
+        if (lifecycleExecutor.isBusy(project.getId())) {
+            logger.info("Ignoring run of {}: {} in progress", project.getName(),
+                    lifecycleExecutor.getRunningOperation(project.getId()));
+            return;
+        }
+        
+        runProject(project);
+    }
+
+    private void runProject(Project project) {
         logger.info("Running project: {}", project.getName());
         
         // Update UI immediately
@@ -206,51 +340,152 @@ public class MainController {
             controller.updateStatus(Project.ProjectStatus.STARTING);
         }
         
-        // Start in background thread
-        new Thread(() -> {
-            String containerId = dockerService.startProject(project);
-            
-            Platform.runLater(() -> {
-                if (containerId != null) {
-                    project.setContainerId(containerId);
-                    project.setStatus(Project.ProjectStatus.RUNNING);
-                    
-                    if (controller != null) {
-                        controller.updateStatus(Project.ProjectStatus.RUNNING);
-                    }
-                    
-                    String url = "http://localhost:" + project.getPort();
-                    showInfo("Project Started", 
-                        "Project '" + project.getName() + "' is now running!\n\nAccess it at: " + url);
-                } else {
-                    project.setStatus(Project.ProjectStatus.ERROR);
-                    
-                    if (controller != null) {
-                        controller.updateStatus(Project.ProjectStatus.ERROR);
-                    }
-                    
+        // Start on the shared lifecycle executor
+        lifecycleExecutor.submit(project, "start", () -> dockerService.startProject(project))
+                .whenComplete((containerId, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                if (controller != null) {
+                    controller.updateStatus(project.getStatus());
+                }
+                showWarning("Start Not Run", 
+                    "Project '" + project.getName() + "' was not started:\n" + rootMessage(error));
+            } else if (containerId != null) {
+                // Still STARTING, the readiness check decides what comes next
+                dockerService.awaitReady(project).thenAccept(readiness ->
+                        Platform.runLater(() -> handleReadiness(project, readiness)));
+            } else {
+                project.setStatus(Project.ProjectStatus.ERROR);
+                
+                if (controller != null) {
+                    controller.updateStatus(Project.ProjectStatus.ERROR);
+                }
+                
+                showError("Start Failed", 
+                    "Failed to start project '" + project.getName() + "'.\nCheck the logs for more details.");
+            }
+        }));
+    }
+
+    private void handleReadiness(Project project, ReadinessProber.Result readiness) {
+        ProjectItemController controller = projectControllers.get(project.getId());
+        if (controller != null) {
+            controller.updateStatus(project.getStatus());
+        }
+        if (project == selectedProject) {
+            showLastStart(project);
+        }
+        
+        String url = "http://localhost:" + project.getPort();
+        switch (readiness.getOutcome()) {
+            case READY -> showInfo("Project Started", 
+                String.format("Project '%s' is ready after %.1fs!\n\nAccess it at: %s",
+                        project.getName(), readiness.getElapsedMillis() / 1000.0, url));
+            case TIMED_OUT -> showWarning("Project Not Responding", 
+                "The container of project '" + project.getName() + "' is running, but the app did not answer at " 
+                    + url + " within " + project.getDockerOptions().getReadinessTimeoutSeconds() + "s.\n\n"
+                    + "Last attempt: " + readiness.getDetail() + "\nCheck the logs for more details.");
+            case ABANDONED -> {
+                if (project.getStatus() == Project.ProjectStatus.ERROR) {
                     showError("Start Failed", 
-                        "Failed to start project '" + project.getName() + "'.\nCheck the logs for more details.");
+                        "Project '" + project.getName() + "' exited during start-up.\nCheck the logs for more details.");
                 }
-            });
-        }).start();
+            }
+        }
+    }
+
+    private void showLastStart(Project project) {
+        StartupTimeline timeline = dockerService.getLastStartTimeline(project.getId());
+        if (timeline == null || timeline.getPhases().isEmpty()) {
+            lastStartLabel.setText("Not started since the manager was opened");
+        } else {
+            lastStartLabel.setText(timeline.describe());
+        }
     }
 
     private void handleStopProject(Project project) {
         logger.info("Stopping project: {}", project.getName());
         
-        new Thread(() -> {
-            dockerService.stopProject(project);
+        lifecycleExecutor.submit(project, "stop", () -> dockerService.stopProject(project))
+                .whenComplete((stopped, error) -> Platform.runLater(() -> {
+            ProjectItemController controller = projectControllers.get(project.getId());
+            if (controller != null) {
+                controller.updateStatus(project.getStatus());
+            }
+            
+            if (error == null && stopped) {
+                showInfo("Project Stopped", "Project '" + project.getName() + "' has been stopped.");
+            } else {
+                showError("Stop Failed", 
+                    "Failed to stop project '" + project.getName() + "'." + 
+                    (error != null ? "\n" + rootMessage(error) : "\nCheck the logs for more details."));
+            }
+        }));
+    }
+
+    private void handleCancelOperation(Project project) {
+        String operation = lifecycleExecutor.getRunningOperation(project.getId());
+        if (lifecycleExecutor.cancel(project.getId())) {
+            logger.info("Cancelled operations of {} (running: {})", project.getName(), operation);
+            showInfo("Operation Cancelled", 
+                "Pending operations of '" + project.getName() + "' have been cancelled.");
+        } else {
+            showInfo("Nothing to Cancel", "Project '" + project.getName() + "' has no operation in progress.");
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+    
+    private void handleContainerEvent(String projectId, String containerId,
+                                      Project.ProjectStatus status, String reason, boolean exited) {
+        Platform.runLater(() -> {
+            Project project = projects.stream()
+                    .filter(p -> p.getId().equals(projectId))
+                    .findFirst()
+                    .orElse(null);
+            if (project == null) {
+                return;
+            }
             
-            Platform.runLater(() -> {
+            // Ignore events of containers the project has already moved on from
+            boolean serviceContainer = project.getServiceContainers().containsValue(containerId);
+            if (!serviceContainer && project.getContainerId() != null && !project.getContainerId().equals(containerId)) {
+                return;
+            }
+            // A start in progress reports RUNNING itself once the app answers, but a container
+            // exiting before then still counts
+            if (project.getStatus() == Project.ProjectStatus.STARTING
+                    && (project.getContainerId() == null || !exited)) {
+                return;
+            }
+            
+            if (serviceContainer) {
+                // One service going down takes the stack down, the others are stopped by the next start or stop
+                if (status == Project.ProjectStatus.RUNNING) {
+                    return;
+                }
+            } else if (!exited) {
+                // Still running, unhealthy or out of memory, stop must still reach it
+                project.setContainerId(containerId);
+            } else {
+                project.setContainerId(null);
+            }
+            
+            if (project.getStatus() != status) {
+                logger.info("Project {} is now {}: {}", project.getName(), status.getDisplayName(), reason);
+                project.setStatus(status);
+                
                 ProjectItemController controller = projectControllers.get(project.getId());
                 if (controller != null) {
-                    controller.updateStatus(Project.ProjectStatus.STOPPED);
+                    controller.updateStatus(status);
                 }
-                
-                showInfo("Project Stopped", "Project '" + project.getName() + "' has been stopped.");
-            });
-        }).start();
+            }
+        });
     }
     
     private void handleRebuildProject(Project project) {
@@ -263,11 +498,12 @@ public class MainController {
             if (response == ButtonType.OK) {
                 logger.info("Rebuilding project: {}", project.getName());
                 
-                // First delete the existing image
-                dockerService.deleteProjectImage(project);
-                
-                // Then start the project (which will rebuild)
-                handleRunProject(project);
+                // First delete the existing image, the start queued behind it rebuilds
+                lifecycleExecutor.submit(project, "delete-image", () -> {
+                    dockerService.deleteProjectImage(project);
+                    return null;
+                });
+                runProject(project);
             }
         });
     }
@@ -300,6 +536,40 @@ public class MainController {
         }
     }
 
+    private void handleOpenConsole(Project project) {
+        Stage existing = consoleWindows.get(project.getId());
+        if (existing != null) {
+            existing.toFront();
+            return;
+        }
+        
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/log-console.fxml"));
+            Parent root = loader.load();
+            LogConsoleController consoleController = loader.getController();
+            
+            Scene scene = new Scene(root);
+            scene.getStylesheets().add(getClass().getResource("/css/styles.css").toExternalForm());
+            
+            Stage stage = new Stage();
+            stage.setTitle("Console - " + project.getName());
+            stage.setScene(scene);
+            stage.initOwner(projectsContainer.getScene().getWindow());
+            stage.setOnHidden(e -> {
+                consoleController.detach();
+                consoleWindows.remove(project.getId());
+            });
+            
+            consoleController.attach(project);
+            consoleWindows.put(project.getId(), stage);
+            stage.show();
+            
+        } catch (IOException e) {
+            logger.error("Failed to open live console", e);
+            showError("UI Error", "Failed to open the live console");
+        }
+    }
+
     private void handleSelectProject(Project project) {
         selectedProject = project;
         
@@ -340,6 +610,17 @@ public class MainController {
             portField.setText(String.valueOf(project.getPort()));
             memoryLimitField.setText(String.valueOf(project.getDockerOptions().getMemoryLimit()));
             cpuLimitField.setText(String.valueOf(project.getDockerOptions().getCpuLimit()));
+            buildKitCheckBox.setSelected(project.getDockerOptions().isBuildKit());
+            fastStartCheckBox.setSelected(project.getDockerOptions().isFastStart());
+            readinessCheckChoice.setValue(project.getDockerOptions().getReadinessCheck());
+            readinessTimeoutField.setText(String.valueOf(project.getDockerOptions().getReadinessTimeoutSeconds()));
+            showLastStart(project);
+            
+            Project.LogOptions logOptions = project.getLogOptions();
+            logMaxFilesField.setText(String.valueOf(logOptions.getMaxFiles()));
+            logMaxSizeField.setText(String.valueOf(logOptions.getMaxTotalSizeMb()));
+            logMaxAgeField.setText(String.valueOf(logOptions.getMaxAgeDays()));
+            logCompressCheckBox.setSelected(logOptions.isCompressOldLogs());
             
             // Load environment variables
             loadEnvVars(project);
@@ -428,7 +709,8 @@ public class MainController {
             // Update port
             int newPort = Integer.parseInt(portField.getText());
             if (newPort != selectedProject.getPort()) {
-                if (portManager.updatePort(selectedProject.getPort(), newPort)) {
+                if (portManager.updatePort(selectedProject.getId(), selectedProject.getPort(), newPort,
+                        selectedProject.getPortCount())) {
                     selectedProject.setPort(newPort);
                 } else {
                     showWarning("Port Unavailable", "The specified port is not available.");
@@ -439,6 +721,18 @@ public class MainController {
             // Update Docker options
             selectedProject.getDockerOptions().setMemoryLimit(Long.parseLong(memoryLimitField.getText()));
             selectedProject.getDockerOptions().setCpuLimit(Double.parseDouble(cpuLimitField.getText()));
+            selectedProject.getDockerOptions().setBuildKit(buildKitCheckBox.isSelected());
+            selectedProject.getDockerOptions().setFastStart(fastStartCheckBox.isSelected());
+            selectedProject.getDockerOptions().setReadinessCheck(readinessCheckChoice.getValue());
+            selectedProject.getDockerOptions().setReadinessTimeoutSeconds(
+                    Integer.parseInt(readinessTimeoutField.getText().trim()));
+            
+            // Update log retention
+            Project.LogOptions logOptions = selectedProject.getLogOptions();
+            logOptions.setMaxFiles(Integer.parseInt(logMaxFilesField.getText().trim()));
+            logOptions.setMaxTotalSizeMb(Long.parseLong(logMaxSizeField.getText().trim()));
+            logOptions.setMaxAgeDays(Integer.parseInt(logMaxAgeField.getText().trim()));
+            logOptions.setCompressOldLogs(logCompressCheckBox.isSelected());
             
             // Update environment variables
             Map<String, String> envVars = new HashMap<>();
@@ -482,7 +776,7 @@ public class MainController {
             showInfo("Settings Saved", "Project settings have been saved successfully!");
             
         } catch (NumberFormatException e) {
-            showError("Invalid Input", "Please enter valid numbers for port, memory, and CPU limits.");
+            showError("Invalid Input", "Please enter valid numbers for port, memory, CPU, readiness timeout and log retention limits.");
         }
     }
 
@@ -497,13 +791,23 @@ public class MainController {
         
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                // Stop if running
-                if (selectedProject.getStatus() == Project.ProjectStatus.RUNNING) {
+                // Drop queued operations, then stop if running
+                lifecycleExecutor.cancel(selectedProject.getId());
+                if (selectedProject.getStatus() == Project.ProjectStatus.RUNNING
+                        || selectedProject.getStatus() == Project.ProjectStatus.UNHEALTHY) {
                     handleStopProject(selectedProject);
                 }
+                Project deleted = selectedProject;
+                lifecycleExecutor.submit(deleted, "remove-containers", () -> {
+                    dockerService.removeIdleContainers(deleted);
+                    return null;
+                });
                 
-                // Release port
-                portManager.releasePort(selectedProject.getPort());
+                // Release ports
+                for (int offset = 0; offset < selectedProject.getPortCount(); offset++) {
+                    portManager.releasePort(selectedProject.getPort() + offset);
+                }
+                projectWatcher.unwatch(selectedProject.getId());
                 
                 // Remove from list
                 String projectId = selectedProject.getId();
@@ -512,6 +816,11 @@ public class MainController {
                 
                 // Remove from UI
                 projectControllers.remove(projectId);
+                Stage console = consoleWindows.get(projectId);
+                if (console != null) {
+                    console.close();
+                }
+                LogRingBuffer.remove(projectId);
                 
                 // Clear selection
                 selectedProject = null;
@@ -552,13 +861,87 @@ public class MainController {
         
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                dockerService.stopAllContainers(projects);
-                refreshProjectsList();
-                showInfo("Containers Stopped", "All running containers have been stopped.");
+                batchService.stopAll(projects, this::handleBatchProgress)
+                        .thenAccept(report -> showBatchReport("Containers Stopped", report));
             }
         });
     }
 
+    @FXML
+    private void handleStartAll() {
+        if (!dockerService.isDockerAvailable()) {
+            showError("Docker Not Available", 
+                "Docker is not installed or not running.\nPlease install Docker and make sure it's running.");
+            return;
+        }
+
+        // Reflect the pending starts right away, results stream in per project
+        for (Project project : projects) {
+            if (project.getStatus() == Project.ProjectStatus.STOPPED || project.getStatus() == Project.ProjectStatus.ERROR) {
+                ProjectItemController controller = projectControllers.get(project.getId());
+                if (controller != null) {
+                    controller.updateStatus(Project.ProjectStatus.STARTING);
+                }
+            }
+        }
+
+        batchService.startAll(projects, this::handleBatchProgress)
+                .thenAccept(report -> showBatchReport("Projects Started", report));
+    }
+
+    private void handleProjectTypeChanged(Project project, ProjectType newType) {
+        Platform.runLater(() -> {
+            if (!projects.contains(project)) {
+                return;
+            }
+            ProjectType oldType = project.getType();
+            project.setType(newType);
+            configService.updateProject(project, projects);
+            // The frontend of a full-stack project is published on the port after the project's
+            if (newType == ProjectType.FULLSTACK && oldType != ProjectType.FULLSTACK
+                    && !portManager.reservePort(project.getId(), project.getFrontendPort())) {
+                logger.warn("Frontend port {} of {} is not available", project.getFrontendPort(), project.getName());
+            } else if (oldType == ProjectType.FULLSTACK && newType != ProjectType.FULLSTACK) {
+                portManager.releasePort(project.getFrontendPort());
+            }
+            
+            ProjectItemController controller = projectControllers.get(project.getId());
+            if (controller != null) {
+                controller.updateUI();
+            }
+            // Only the badge, the rest of the form may hold unsaved edits
+            if (project == selectedProject) {
+                projectTypeLabel.setText(newType.getDisplayName());
+                projectTypeLabel.getStyleClass().removeIf(s -> s.startsWith("type-"));
+                projectTypeLabel.getStyleClass().add("type-" + newType.name().toLowerCase());
+            }
+            logger.info("Updated type of {} from {} to {}", project.getName(), oldType, newType);
+        });
+    }
+
+    private void handleBatchProgress(BatchLifecycleService.ProjectResult result) {
+        Project project = result.getProject();
+        logger.info("{} finished in {} ms: {}", project.getName(), result.getElapsedMillis(), result.getOutcome());
+
+        // Called on the batch's worker threads, the controllers belong to the FX thread
+        Platform.runLater(() -> {
+            ProjectItemController controller = projectControllers.get(project.getId());
+            if (controller != null) {
+                controller.updateStatus(project.getStatus());
+            }
+        });
+    }
+
+    private void showBatchReport(String title, BatchLifecycleService.BatchReport report) {
+        if (report.getResults().isEmpty()) {
+            showInfo(title, "There were no projects to " + report.getOperation().name().toLowerCase() + ".");
+        } else if (report.isAllSucceeded()) {
+            showInfo(title, report.getSummary());
+        } else {
+            showWarning(title, report.getSummary() + "\n\n" + report.getFailureDetails());
+        }
+    }
+
     @FXML
     private void handlePreferences() {
         showInfo("Preferences", "Preferences dialog - Coming soon!");
@@ -583,10 +966,9 @@ public class MainController {
 
     @FXML
     private void handleExit() {
-        // Stop all containers before exit
-        dockerService.stopAllContainers(projects);
-        dockerService.close();
-        Platform.exit();
+        // Stop all containers in the background, shutdown() releases the services
+        batchService.stopAll(projects, this::handleBatchProgress)
+                .whenComplete((report, error) -> Platform.runLater(Platform::exit));
     }
 
     // Utility methods for dialogs
@@ -621,9 +1003,29 @@ public class MainController {
     }
 
     public void shutdown() {
+        if (shutDown) {
+            return;
+        }
+        shutDown = true;
+
         logger.info("Shutting down application");
-        dockerService.stopAllContainers(projects);
+        try {
+            BatchLifecycleService.BatchReport report = batchService.stopAll(projects, null)
+                    .get(SHUTDOWN_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            logger.info("Stopped projects on shutdown: {}", report.getSummary());
+        } catch (TimeoutException e) {
+            logger.warn("Gave up waiting for projects to stop after {}s", SHUTDOWN_STOP_TIMEOUT_SECONDS);
+        } catch (Exception e) {
+            logger.error("Failed to stop projects on shutdown", e);
+        }
+        batchService.close();
+        lifecycleExecutor.shutdown(5, TimeUnit.SECONDS);
         dockerService.close();
+        metricsExporter.close();
+        portManager.close();
+        projectWatcher.close();
+        // Write out any project edits still waiting for the background flusher
+        configService.close();
     }
 }
 
@@ -26,6 +26,8 @@ public class ProjectItemController {
     private Consumer<Project> onSelectCallback;
     private Consumer<Project> onRebuildCallback;
     private Consumer<Project> onViewLogsCallback;
+    private Consumer<Project> onCancelCallback;
+    private Consumer<Project> onOpenConsoleCallback;
 
     public void initialize() {
         // Click handler will be set up after project is set
@@ -92,7 +94,7 @@ public class ProjectItemController {
                     stopButton.setManaged(false);
                     runButton.setDisable(true);
                 }
-                case RUNNING -> {
+                case RUNNING, UNHEALTHY -> {
                     runButton.setVisible(false);
                     runButton.setManaged(false);
                     stopButton.setVisible(true);
@@ -140,10 +142,31 @@ public class ProjectItemController {
         setupContextMenu(); // Update context menu
     }
     
+    public void setOnOpenConsole(Consumer<Project> callback) {
+        this.onOpenConsoleCallback = callback;
+        setupContextMenu(); // Update context menu
+    }
+    
+    public void setOnCancel(Consumer<Project> callback) {
+        this.onCancelCallback = callback;
+        setupContextMenu(); // Update context menu
+    }
+    
     private void setupContextMenu() {
         if (projectCard != null) {
             javafx.scene.control.ContextMenu contextMenu = new javafx.scene.control.ContextMenu();
             
+            // Live Console menu item
+            if (onOpenConsoleCallback != null) {
+                javafx.scene.control.MenuItem consoleItem = new javafx.scene.control.MenuItem("🖥 Live Console");
+                consoleItem.setOnAction(e -> {
+                    if (project != null) {
+                        onOpenConsoleCallback.accept(project);
+                    }
+                });
+                contextMenu.getItems().add(consoleItem);
+            }
+            
             // View Logs menu item
             if (onViewLogsCallback != null) {
                 javafx.scene.control.MenuItem viewLogsItem = new javafx.scene.control.MenuItem("📋 View Logs");
@@ -166,6 +189,17 @@ public class ProjectItemController {
                 contextMenu.getItems().add(rebuildItem);
             }
             
+            // Cancel menu item
+            if (onCancelCallback != null) {
+                javafx.scene.control.MenuItem cancelItem = new javafx.scene.control.MenuItem("⏹ Cancel Operation");
+                cancelItem.setOnAction(e -> {
+                    if (project != null) {
+                        onCancelCallback.accept(project);
+                    }
+                });
+                contextMenu.getItems().add(cancelItem);
+            }
+            
             projectCard.setOnContextMenuRequested(e -> contextMenu.show(projectCard, e.getScreenX(), e.getScreenY()));
         }
     }
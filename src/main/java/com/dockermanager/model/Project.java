@@ -1,6 +1,7 @@
 package com.dockermanager.model;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -12,13 +13,18 @@ public class Project {
     private int port;
     private Map<String, String> environmentVariables;
     private DockerOptions dockerOptions;
+    private LogOptions logOptions;
     private String containerId;
-    private ProjectStatus status;
+    // Containers of a multi-container project by service name, the primary one is also containerId
+    private Map<String, String> serviceContainers;
+    // Written by the lifecycle threads and the FX thread, read by the readiness prober
+    private volatile ProjectStatus status;
 
     public Project() {
         this.id = UUID.randomUUID().toString();
         this.environmentVariables = new HashMap<>();
         this.dockerOptions = new DockerOptions();
+        this.logOptions = new LogOptions();
         this.status = ProjectStatus.STOPPED;
     }
 
@@ -70,6 +76,18 @@ public class Project {
         this.port = port;
     }
 
+    /**
+     * Number of consecutive host ports the project publishes from its port,
+     * a full-stack project also publishes its frontend on the next one
+     */
+    public int getPortCount() {
+        return type == ProjectType.FULLSTACK ? 2 : 1;
+    }
+
+    public int getFrontendPort() {
+        return port + 1;
+    }
+
     public Map<String, String> getEnvironmentVariables() {
         return environmentVariables;
     }
@@ -86,6 +104,14 @@ public class Project {
         this.dockerOptions = dockerOptions;
     }
 
+    public LogOptions getLogOptions() {
+        return logOptions;
+    }
+
+    public void setLogOptions(LogOptions logOptions) {
+        this.logOptions = logOptions;
+    }
+
     public String getContainerId() {
         return containerId;
     }
@@ -94,6 +120,17 @@ public class Project {
         this.containerId = containerId;
     }
 
+    public Map<String, String> getServiceContainers() {
+        if (serviceContainers == null) {
+            serviceContainers = new LinkedHashMap<>();
+        }
+        return serviceContainers;
+    }
+
+    public void setServiceContainers(Map<String, String> serviceContainers) {
+        this.serviceContainers = serviceContainers;
+    }
+
     public ProjectStatus getStatus() {
         return status;
     }
@@ -106,6 +143,8 @@ public class Project {
         STOPPED("Stopped", "#95A5A6"),
         STARTING("Starting", "#F39C12"),
         RUNNING("Running", "#2ECC71"),
+        // The container runs but the app never answered its readiness check
+        UNHEALTHY("Unhealthy", "#E67E22"),
         ERROR("Error", "#E74C3C");
 
         private final String displayName;
@@ -125,15 +164,26 @@ public class Project {
         }
     }
 
+    public enum ReadinessCheck {
+        HTTP, // any response other than 5xx
+        TCP // the connection is accepted and kept open
+    }
+
     public static class DockerOptions {
         private long memoryLimit; // in MB
         private double cpuLimit; // number of CPUs
         private Map<String, String> volumeMounts;
+        private boolean buildKit; // BuildKit Dockerfiles with dependency cache mounts
+        private boolean fastStart; // keep the stopped container and reuse it
+        private ReadinessCheck readinessCheck;
+        private int readinessTimeoutSeconds; // RUNNING once ready within this, UNHEALTHY after
 
         public DockerOptions() {
             this.memoryLimit = 512; // default 512MB
             this.cpuLimit = 1.0; // default 1 CPU
             this.volumeMounts = new HashMap<>();
+            this.readinessCheck = ReadinessCheck.HTTP;
+            this.readinessTimeoutSeconds = 60;
         }
 
         public long getMemoryLimit() {
@@ -152,6 +202,38 @@ public class Project {
             this.cpuLimit = cpuLimit;
         }
 
+        public boolean isBuildKit() {
+            return buildKit;
+        }
+
+        public void setBuildKit(boolean buildKit) {
+            this.buildKit = buildKit;
+        }
+
+        public boolean isFastStart() {
+            return fastStart;
+        }
+
+        public void setFastStart(boolean fastStart) {
+            this.fastStart = fastStart;
+        }
+
+        public ReadinessCheck getReadinessCheck() {
+            return readinessCheck;
+        }
+
+        public void setReadinessCheck(ReadinessCheck readinessCheck) {
+            this.readinessCheck = readinessCheck;
+        }
+
+        public int getReadinessTimeoutSeconds() {
+            return readinessTimeoutSeconds;
+        }
+
+        public void setReadinessTimeoutSeconds(int readinessTimeoutSeconds) {
+            this.readinessTimeoutSeconds = readinessTimeoutSeconds;
+        }
+
         public Map<String, String> getVolumeMounts() {
             return volumeMounts;
         }
@@ -160,5 +242,50 @@ public class Project {
             this.volumeMounts = volumeMounts;
         }
     }
-}
 
+    public static class LogOptions {
+        private int maxFiles; // number of runs kept
+        private long maxTotalSizeMb; // size of all runs together, in MB
+        private int maxAgeDays; // runs older than this are deleted
+        private boolean compressOldLogs;
+
+        public LogOptions() {
+            this.maxFiles = 20; // default 20 runs
+            this.maxTotalSizeMb = 100; // default 100MB
+            this.maxAgeDays = 30; // default 30 days
+            this.compressOldLogs = true;
+        }
+
+        public int getMaxFiles() {
+            return maxFiles;
+        }
+
+        public void setMaxFiles(int maxFiles) {
+            this.maxFiles = maxFiles;
+        }
+
+        public long getMaxTotalSizeMb() {
+            return maxTotalSizeMb;
+        }
+
+        public void setMaxTotalSizeMb(long maxTotalSizeMb) {
+            this.maxTotalSizeMb = maxTotalSizeMb;
+        }
+
+        public int getMaxAgeDays() {
+            return maxAgeDays;
+        }
+
+        public void setMaxAgeDays(int maxAgeDays) {
+            this.maxAgeDays = maxAgeDays;
+        }
+
+        public boolean isCompressOldLogs() {
+            return compressOldLogs;
+        }
+
+        public void setCompressOldLogs(boolean compressOldLogs) {
+            this.compressOldLogs = compressOldLogs;
+        }
+    }
+}
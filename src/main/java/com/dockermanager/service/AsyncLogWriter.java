@@ -0,0 +1,201 @@
+package com.dockermanager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single background thread that performs all project log file I/O.
+ * Producers enqueue pre-formatted text on a lock-free queue and return
+ * immediately; the writer flushes each file once per interval or once
+ * enough bytes have piled up, instead of once per line.
+ */
+class AsyncLogWriter {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLogWriter.class);
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int FLUSH_THRESHOLD_CHARS = 64 * 1024;
+    private static final long BARRIER_TIMEOUT_SECONDS = 5;
+
+    private static final AsyncLogWriter INSTANCE = new AsyncLogWriter();
+
+    private final ConcurrentLinkedQueue<Record> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    // Only touched by the writer thread
+    private final Map<Writer, Integer> dirtyWriters = new IdentityHashMap<>();
+    private final Thread writerThread;
+    private long lastFlushNanos = System.nanoTime();
+
+    private AsyncLogWriter() {
+        writerThread = new Thread(this::runLoop, "project-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushAll, "project-log-flush"));
+    }
+
+    static AsyncLogWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue text for a log file, returns without doing any I/O
+     */
+    void write(Writer target, String text) {
+        enqueue(new Record(target, text, RecordType.TEXT, null));
+    }
+
+    /**
+     * Block until everything queued for a file so far is on disk
+     */
+    void flush(Writer target) {
+        awaitBarrier(target, RecordType.FLUSH);
+    }
+
+    /**
+     * Flush and close a file once everything queued for it has been written
+     */
+    void close(Writer target) {
+        awaitBarrier(target, RecordType.CLOSE);
+    }
+
+    /**
+     * Block until everything queued for any file is on disk
+     */
+    void flushAll() {
+        awaitBarrier(null, RecordType.FLUSH);
+    }
+
+    /**
+     * Number of records waiting to be written, used by producers that want backpressure
+     */
+    int getPendingCount() {
+        return pending.get();
+    }
+
+    private void awaitBarrier(Writer target, RecordType type) {
+        CountDownLatch done = new CountDownLatch(1);
+        enqueue(new Record(target, null, type, done));
+        try {
+            if (!done.await(BARRIER_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Timed out waiting for project logs to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Record record) {
+        queue.add(record);
+        if (pending.getAndIncrement() == 0) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            Record record = queue.poll();
+            if (record == null) {
+                flushIfDue(System.nanoTime());
+                LockSupport.parkNanos(this, dirtyWriters.isEmpty() ? IDLE_PARK_NANOS : FLUSH_INTERVAL_NANOS);
+                continue;
+            }
+
+            try {
+                process(record);
+            } catch (Exception e) {
+                logger.error("Project log writer failed: {}", e.getMessage(), e);
+            } finally {
+                pending.decrementAndGet();
+            }
+            flushIfDue(System.nanoTime());
+        }
+    }
+
+    private void process(Record record) {
+        switch (record.type) {
+            case TEXT -> {
+                try {
+                    record.target.write(record.text);
+                    int written = dirtyWriters.merge(record.target, record.text.length(), Integer::sum);
+                    if (written >= FLUSH_THRESHOLD_CHARS) {
+                        flushWriter(record.target);
+                        dirtyWriters.remove(record.target);
+                    }
+                } catch (IOException e) {
+                    logger.error("Failed to write to project log: {}", e.getMessage());
+                }
+            }
+            case FLUSH -> {
+                if (record.target == null) {
+                    flushAllDirty();
+                } else if (dirtyWriters.remove(record.target) != null) {
+                    flushWriter(record.target);
+                }
+                record.done.countDown();
+            }
+            case CLOSE -> {
+                dirtyWriters.remove(record.target);
+                try {
+                    record.target.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close project log: {}", e.getMessage());
+                }
+                record.done.countDown();
+            }
+        }
+    }
+
+    private void flushIfDue(long now) {
+        if (!dirtyWriters.isEmpty() && now - lastFlushNanos >= FLUSH_INTERVAL_NANOS) {
+            flushAllDirty();
+        }
+    }
+
+    private void flushAllDirty() {
+        Iterator<Writer> iterator = dirtyWriters.keySet().iterator();
+        while (iterator.hasNext()) {
+            flushWriter(iterator.next());
+            iterator.remove();
+        }
+        lastFlushNanos = System.nanoTime();
+    }
+
+    private void flushWriter(Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            logger.error("Failed to flush project log: {}", e.getMessage());
+        }
+    }
+
+    private enum RecordType {
+        TEXT,
+        FLUSH,
+        CLOSE
+    }
+
+    private static class Record {
+        private final Writer target;
+        private final String text;
+        private final RecordType type;
+        private final CountDownLatch done;
+
+        Record(Writer target, String text, RecordType type, CountDownLatch done) {
+            this.target = target;
+            this.text = text;
+            this.type = type;
+            this.done = done;
+        }
+    }
+}
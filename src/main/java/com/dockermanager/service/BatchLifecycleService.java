@@ -0,0 +1,281 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Starts or stops many projects at once through the shared
+ * {@link LifecycleExecutor}, with a timeout per project and a report
+ * aggregating the outcomes.
+ */
+public class BatchLifecycleService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchLifecycleService.class);
+    private static final long START_TIMEOUT_SECONDS = 10 * 60;
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final DockerService dockerService;
+    private final LifecycleExecutor lifecycleExecutor;
+    private final ScheduledExecutorService timeoutScheduler;
+
+    public BatchLifecycleService(DockerService dockerService, LifecycleExecutor lifecycleExecutor) {
+        this.dockerService = dockerService;
+        this.lifecycleExecutor = lifecycleExecutor;
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start every stopped project in parallel
+     * @param projects the projects to consider
+     * @param onProgress called once per project as soon as its start finishes
+     * @return future completing with the aggregated report
+     */
+    public CompletableFuture<BatchReport> startAll(List<Project> projects, Consumer<ProjectResult> onProgress) {
+        return runBatch(Operation.START, projects,
+                p -> p.getStatus() == Project.ProjectStatus.STOPPED || p.getStatus() == Project.ProjectStatus.ERROR,
+                START_TIMEOUT_SECONDS, onProgress);
+    }
+
+    /**
+     * Stop every running project in parallel
+     * @param projects the projects to consider
+     * @param onProgress called once per project as soon as its stop finishes
+     * @return future completing with the aggregated report
+     */
+    public CompletableFuture<BatchReport> stopAll(List<Project> projects, Consumer<ProjectResult> onProgress) {
+        return runBatch(Operation.STOP, projects,
+                p -> p.getStatus() == Project.ProjectStatus.RUNNING
+                        || p.getStatus() == Project.ProjectStatus.UNHEALTHY,
+                STOP_TIMEOUT_SECONDS, onProgress);
+    }
+
+    private CompletableFuture<BatchReport> runBatch(Operation operation, List<Project> projects,
+                                                    Predicate<Project> eligible, long timeoutSeconds,
+                                                    Consumer<ProjectResult> onProgress) {
+        long batchStart = System.nanoTime();
+        List<CompletableFuture<ProjectResult>> futures = new ArrayList<>();
+
+        for (Project project : new ArrayList<>(projects)) {
+            if (!eligible.test(project)) {
+                continue;
+            }
+            CompletableFuture<ProjectResult> future = submit(operation, project, eligible, timeoutSeconds);
+            if (onProgress != null) {
+                future.thenAccept(onProgress);
+            }
+            futures.add(future);
+        }
+
+        logger.info("Batch {} of {} projects submitted", operation, futures.size());
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<ProjectResult> results = new ArrayList<>();
+            for (CompletableFuture<ProjectResult> future : futures) {
+                results.add(future.join());
+            }
+            BatchReport report = new BatchReport(operation, results,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart));
+            logger.info("Batch {} finished: {}", operation, report.getSummary());
+            return report;
+        });
+    }
+
+    private CompletableFuture<ProjectResult> submit(Operation operation, Project project,
+                                                    Predicate<Project> eligible, long timeoutSeconds) {
+        CompletableFuture<ProjectResult> result = new CompletableFuture<>();
+
+        CompletableFuture<Void> operationFuture = lifecycleExecutor.submit(project,
+                operation.name().toLowerCase(), () -> {
+            long start = System.nanoTime();
+            // The state may have changed while queued behind another operation
+            if (!eligible.test(project)) {
+                result.complete(new ProjectResult(project, Outcome.SUCCEEDED,
+                        "Already " + project.getStatus().getDisplayName().toLowerCase(), 0));
+                return null;
+            }
+
+            // The timeout only covers the operation itself, not time spent queued
+            ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+                if (result.complete(new ProjectResult(project, Outcome.TIMED_OUT,
+                        "No result after " + timeoutSeconds + "s", elapsedMillis(start)))) {
+                    logger.warn("{} of project {} timed out", operation, project.getName());
+                }
+            }, timeoutSeconds, TimeUnit.SECONDS);
+
+            try {
+                boolean success = switch (operation) {
+                    case START -> dockerService.startProject(project) != null;
+                    case STOP -> dockerService.stopProject(project);
+                };
+                if (success && operation == Operation.START) {
+                    // A start succeeds once the app answers, the wait doesn't hold the lane
+                    dockerService.awaitReady(project).thenAccept(readiness ->
+                            result.complete(readinessResult(project, readiness, start)));
+                } else {
+                    result.complete(new ProjectResult(project, success ? Outcome.SUCCEEDED : Outcome.FAILED,
+                            success ? null : "See the project log for details", elapsedMillis(start)));
+                }
+            } catch (Exception e) {
+                logger.error("{} of project {} failed: {}", operation, project.getName(), e.getMessage(), e);
+                result.complete(new ProjectResult(project, Outcome.FAILED, e.getMessage(), elapsedMillis(start)));
+            } finally {
+                timeout.cancel(false);
+            }
+            return null;
+        });
+        operationFuture.whenComplete((ignored, error) -> {
+            // Rejected or cancelled before it ran
+            if (error != null) {
+                result.complete(new ProjectResult(project, Outcome.FAILED, error.getMessage(), 0));
+            }
+        });
+        // Frees the lane for the project's next operation instead of leaving the timed out one running
+        result.thenAccept(projectResult -> {
+            if (projectResult.getOutcome() == Outcome.TIMED_OUT) {
+                operationFuture.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    private static ProjectResult readinessResult(Project project, ReadinessProber.Result readiness, long start) {
+        return switch (readiness.getOutcome()) {
+            case READY -> new ProjectResult(project, Outcome.SUCCEEDED, null, elapsedMillis(start));
+            case TIMED_OUT -> new ProjectResult(project, Outcome.FAILED,
+                    "Not answering on its port: " + readiness.getDetail(), elapsedMillis(start));
+            case ABANDONED -> new ProjectResult(project, Outcome.FAILED,
+                    "Stopped during start-up", elapsedMillis(start));
+        };
+    }
+
+    /**
+     * Release the timeout thread
+     */
+    public void close() {
+        timeoutScheduler.shutdownNow();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    public enum Operation {
+        START,
+        STOP
+    }
+
+    public enum Outcome {
+        SUCCEEDED,
+        FAILED,
+        TIMED_OUT
+    }
+
+    /**
+     * Outcome of one project within a batch
+     */
+    public static class ProjectResult {
+        private final Project project;
+        private final Outcome outcome;
+        private final String message;
+        private final long elapsedMillis;
+
+        public ProjectResult(Project project, Outcome outcome, String message, long elapsedMillis) {
+            this.project = project;
+            this.outcome = outcome;
+            this.message = message;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Project getProject() {
+            return project;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    /**
+     * Aggregated outcome of a batch
+     */
+    public static class BatchReport {
+        private final Operation operation;
+        private final List<ProjectResult> results;
+        private final long elapsedMillis;
+
+        public BatchReport(Operation operation, List<ProjectResult> results, long elapsedMillis) {
+            this.operation = operation;
+            this.results = Collections.unmodifiableList(results);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public List<ProjectResult> getResults() {
+            return results;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long count(Outcome outcome) {
+            return results.stream().filter(r -> r.getOutcome() == outcome).count();
+        }
+
+        public boolean isAllSucceeded() {
+            return count(Outcome.SUCCEEDED) == results.size();
+        }
+
+        public String getSummary() {
+            return String.format("%d succeeded, %d failed, %d timed out in %.1fs",
+                    count(Outcome.SUCCEEDED), count(Outcome.FAILED), count(Outcome.TIMED_OUT),
+                    elapsedMillis / 1000.0);
+        }
+
+        /**
+         * Human-readable list of the projects that did not succeed
+         */
+        public String getFailureDetails() {
+            StringBuilder details = new StringBuilder();
+            for (ProjectResult result : results) {
+                if (result.getOutcome() == Outcome.SUCCEEDED) {
+                    continue;
+                }
+                details.append("• ").append(result.getProject().getName())
+                        .append(": ").append(result.getOutcome() == Outcome.TIMED_OUT ? "timed out" : "failed");
+                if (result.getMessage() != null) {
+                    details.append(" (").append(result.getMessage()).append(")");
+                }
+                details.append("\n");
+            }
+            return details.toString();
+        }
+    }
+}
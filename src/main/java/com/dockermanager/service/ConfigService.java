@@ -1,39 +1,74 @@
 package com.dockermanager.service;
 
 import com.dockermanager.model.Project;
+import com.dockermanager.util.FileUtils;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class ConfigService {
     private static final Logger logger = LoggerFactory.getLogger(ConfigService.class);
     private static final String CONFIG_DIR = System.getProperty("user.home") + File.separator + ".docker-project-manager";
     private static final String PROJECTS_FILE = "projects.json";
+    private static final String PROJECTS_JOURNAL_FILE = "projects.journal";
     private static final String PREFERENCES_FILE = "preferences.json";
+    private static final int COMPACTION_THRESHOLD = 200;
+    private static final long FLUSH_DELAY_MILLIS = 500;
+    private static final String OP_PUT = "put";
+    private static final String OP_DELETE = "delete";
     
     private final Gson gson;
+    private final Gson journalGson;
     private final Path configDirPath;
     private final Path projectsFilePath;
+    private final Path journalFilePath;
     private final Path preferencesFilePath;
+    // Latest serialized journal line per project, written out by the flusher
+    private final Map<String, String> pendingEdits = new LinkedHashMap<>();
+    private final Object ioLock = new Object();
+    private final ScheduledExecutorService flushExecutor;
+    private boolean flushScheduled;
+    private int journalEntries;
 
     public ConfigService() {
         this.gson = new GsonBuilder().setPrettyPrinting().create();
+        // Journal entries must stay on one line each
+        this.journalGson = new Gson();
         this.configDirPath = Paths.get(CONFIG_DIR);
         this.projectsFilePath = configDirPath.resolve(PROJECTS_FILE);
+        this.journalFilePath = configDirPath.resolve(PROJECTS_JOURNAL_FILE);
         this.preferencesFilePath = configDirPath.resolve(PREFERENCES_FILE);
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
         
         initializeConfigDirectory();
     }
@@ -61,50 +96,55 @@ public class ConfigService {
     }
 
     /**
-     * Load all saved projects
+     * Load all saved projects, replaying any journaled edits over the snapshot
      * @return list of projects
      */
     public List<Project> loadProjects() {
-        try (FileReader reader = new FileReader(projectsFilePath.toFile())) {
-            Type listType = new TypeToken<ArrayList<Project>>(){}.getType();
-            List<Project> projects = gson.fromJson(reader, listType);
-            
-            if (projects == null) {
-                projects = new ArrayList<>();
-            }
-            
-            // Reset runtime fields and filter out null entries
-            List<Project> validProjects = new ArrayList<>();
-            for (Project project : projects) {
-                if (project != null && project.getId() != null && project.getPath() != null) {
-                    project.setStatus(Project.ProjectStatus.STOPPED);
-                    project.setContainerId(null);
-                    validProjects.add(project);
-                } else {
-                    logger.warn("Skipping invalid project entry in config");
+        Map<String, Project> byId;
+        int replayed;
+        synchronized (ioLock) {
+            byId = readSnapshot();
+            replayed = replayJournal(byId);
+        }
+        
+        // Reset runtime fields and filter out invalid entries
+        List<Project> validProjects = new ArrayList<>();
+        for (Project project : byId.values()) {
+            if (project.getPath() != null) {
+                if (project.getLogOptions() == null) {
+                    project.setLogOptions(new Project.LogOptions());
                 }
+                project.setStatus(Project.ProjectStatus.STOPPED);
+                project.setContainerId(null);
+                project.setServiceContainers(null);
+                validProjects.add(project);
+            } else {
+                logger.warn("Skipping invalid project entry in config");
             }
-            
-            logger.info("Loaded {} projects from config", validProjects.size());
-            return validProjects;
-            
-        } catch (Exception e) {
-            logger.error("Failed to load projects: {}", e.getMessage(), e);
-            return new ArrayList<>();
         }
+        
+        // Fold the replayed edits into the snapshot so the next load starts clean
+        if (replayed > 0) {
+            saveProjects(validProjects);
+        }
+        
+        logger.info("Loaded {} projects from config ({} journaled edits)", validProjects.size(), replayed);
+        return validProjects;
     }
 
     /**
-     * Save all projects
+     * Save all projects as a new snapshot and start an empty journal,
+     * any edits still waiting to be flushed are superseded by it
      * @param projects list of projects to save
      */
     public void saveProjects(List<Project> projects) {
-        try (FileWriter writer = new FileWriter(projectsFilePath.toFile())) {
-            gson.toJson(projects, writer);
+        String json = gson.toJson(projects);
+        synchronized (ioLock) {
+            synchronized (pendingEdits) {
+                pendingEdits.clear();
+            }
+            writeSnapshot(json);
             logger.info("Saved {} projects to config", projects.size());
-            
-        } catch (IOException e) {
-            logger.error("Failed to save projects", e);
         }
     }
 
@@ -118,13 +158,35 @@ public class ConfigService {
         boolean exists = projects.stream().anyMatch(p -> p.getId().equals(project.getId()));
         if (!exists) {
             projects.add(project);
-            saveProjects(projects);
+            markDirty(project.getId(), JournalEntry.put(project));
             logger.info("Added project: {}", project.getName());
         } else {
             logger.warn("Project already exists: {}", project.getName());
         }
     }
 
+    /**
+     * Add many projects, persisted together by the next flush
+     * @param newProjects the projects to add
+     * @param projects existing projects list
+     */
+    public void addProjects(List<Project> newProjects, List<Project> projects) {
+        Set<String> existingIds = new HashSet<>();
+        for (Project project : projects) {
+            existingIds.add(project.getId());
+        }
+        
+        int added = 0;
+        for (Project project : newProjects) {
+            if (existingIds.add(project.getId())) {
+                projects.add(project);
+                markDirty(project.getId(), JournalEntry.put(project));
+                added++;
+            }
+        }
+        logger.info("Added {} projects", added);
+    }
+
     /**
      * Update an existing project
      * @param project the project to update
@@ -134,7 +196,7 @@ public class ConfigService {
         for (int i = 0; i < projects.size(); i++) {
             if (projects.get(i).getId().equals(project.getId())) {
                 projects.set(i, project);
-                saveProjects(projects);
+                markDirty(project.getId(), JournalEntry.put(project));
                 logger.info("Updated project: {}", project.getName());
                 return;
             }
@@ -148,10 +210,164 @@ public class ConfigService {
      */
     public void deleteProject(String projectId, List<Project> projects) {
         projects.removeIf(p -> p.getId().equals(projectId));
-        saveProjects(projects);
+        markDirty(projectId, JournalEntry.delete(projectId));
         logger.info("Deleted project with ID: {}", projectId);
     }
 
+    /**
+     * Write every pending edit to disk now
+     */
+    public void flush() {
+        synchronized (ioLock) {
+            List<String> batch;
+            synchronized (pendingEdits) {
+                batch = new ArrayList<>(pendingEdits.values());
+                pendingEdits.clear();
+                flushScheduled = false;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            
+            appendJournal(batch);
+            if (journalEntries >= COMPACTION_THRESHOLD) {
+                compactJournal();
+            }
+        }
+    }
+
+    /**
+     * Flush pending edits and stop the background writer
+     */
+    public void close() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    private void markDirty(String projectId, JournalEntry entry) {
+        // Serialize now, the caller keeps mutating the project after we return
+        String line = journalGson.toJson(entry);
+        
+        synchronized (pendingEdits) {
+            // Only the latest state of a project needs to reach the disk
+            pendingEdits.remove(projectId);
+            pendingEdits.put(projectId, line);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        
+        try {
+            flushExecutor.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Already closed, write through
+            flush();
+        }
+    }
+
+    private void appendJournal(List<String> lines) {
+        StringBuilder batch = new StringBuilder();
+        for (String line : lines) {
+            batch.append(line).append('\n');
+        }
+        
+        try (FileChannel channel = FileChannel.open(journalFilePath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            journalEntries += lines.size();
+            logger.debug("Persisted {} project edits", lines.size());
+        } catch (IOException e) {
+            logger.error("Failed to append to project journal: {}", e.getMessage(), e);
+        }
+    }
+
+    private void compactJournal() {
+        // Rebuilt from disk so the background thread never reads the live project list
+        Map<String, Project> byId = readSnapshot();
+        replayJournal(byId);
+        writeSnapshot(gson.toJson(new ArrayList<>(byId.values())));
+        logger.info("Compacted project journal into {} projects", byId.size());
+    }
+
+    private Map<String, Project> readSnapshot() {
+        Map<String, Project> byId = new LinkedHashMap<>();
+        
+        try (FileReader reader = new FileReader(projectsFilePath.toFile())) {
+            Type listType = new TypeToken<ArrayList<Project>>(){}.getType();
+            List<Project> projects = gson.fromJson(reader, listType);
+            
+            if (projects != null) {
+                for (Project project : projects) {
+                    if (project != null && project.getId() != null) {
+                        byId.put(project.getId(), project);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load projects: {}", e.getMessage(), e);
+        }
+        return byId;
+    }
+
+    private void writeSnapshot(String json) {
+        try {
+            FileUtils.writeFileAtomically(projectsFilePath, json);
+            // Only drop the journal once the snapshot that contains it is in place
+            Files.deleteIfExists(journalFilePath);
+            journalEntries = 0;
+        } catch (IOException e) {
+            logger.error("Failed to save projects", e);
+        }
+    }
+
+    private int replayJournal(Map<String, Project> byId) {
+        if (!Files.exists(journalFilePath)) {
+            return 0;
+        }
+        
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFilePath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                
+                JournalEntry entry;
+                try {
+                    entry = journalGson.fromJson(line, JournalEntry.class);
+                } catch (JsonParseException e) {
+                    // A crash mid-append leaves at most one torn line at the end
+                    logger.warn("Ignoring unreadable project journal entry");
+                    continue;
+                }
+                
+                if (entry == null || entry.op == null) {
+                    continue;
+                }
+                if (OP_PUT.equals(entry.op) && entry.project != null && entry.project.getId() != null) {
+                    byId.put(entry.project.getId(), entry.project);
+                    replayed++;
+                } else if (OP_DELETE.equals(entry.op) && entry.id != null) {
+                    byId.remove(entry.id);
+                    replayed++;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read project journal: {}", e.getMessage(), e);
+        }
+        return replayed;
+    }
+
+    public Path getConfigDirectory() {
+        return configDirPath;
+    }
+
     /**
      * Load user preferences
      * @return preferences object
@@ -176,8 +392,8 @@ public class ConfigService {
      * @param preferences preferences to save
      */
     public void savePreferences(Preferences preferences) {
-        try (FileWriter writer = new FileWriter(preferencesFilePath.toFile())) {
-            gson.toJson(preferences, writer);
+        try {
+            FileUtils.writeFileAtomically(preferencesFilePath, gson.toJson(preferences));
             logger.info("Saved preferences");
             
         } catch (IOException e) {
@@ -185,6 +401,29 @@ public class ConfigService {
         }
     }
 
+    /**
+     * One line of the project journal, either a full project or a deletion
+     */
+    private static class JournalEntry {
+        private String op;
+        private Project project;
+        private String id;
+
+        static JournalEntry put(Project project) {
+            JournalEntry entry = new JournalEntry();
+            entry.op = OP_PUT;
+            entry.project = project;
+            return entry;
+        }
+
+        static JournalEntry delete(String projectId) {
+            JournalEntry entry = new JournalEntry();
+            entry.op = OP_DELETE;
+            entry.id = projectId;
+            return entry;
+        }
+    }
+
     /**
      * Preferences class to store user settings
      */
@@ -194,6 +433,8 @@ public class ConfigService {
         private double defaultCpuLimit = 1.0;
         private boolean autoStartDocker = false;
         private boolean deleteContainersOnStop = true;
+        private int maxParallelBuilds = 4;
+        private int metricsPort = 0; // Prometheus endpoint on localhost, 0 keeps it off
 
         public String getTheme() {
             return theme;
@@ -234,6 +475,22 @@ public class ConfigService {
         public void setDeleteContainersOnStop(boolean deleteContainersOnStop) {
             this.deleteContainersOnStop = deleteContainersOnStop;
         }
+
+        public int getMaxParallelBuilds() {
+            return maxParallelBuilds;
+        }
+
+        public void setMaxParallelBuilds(int maxParallelBuilds) {
+            this.maxParallelBuilds = maxParallelBuilds;
+        }
+
+        public int getMetricsPort() {
+            return metricsPort;
+        }
+
+        public void setMetricsPort(int metricsPort) {
+            this.metricsPort = metricsPort;
+        }
     }
 }
 
@@ -0,0 +1,208 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one subscription to the Docker events API open and turns lifecycle
+ * events of our own containers into project status changes, so crashes and
+ * OOM kills show up without polling each container.
+ */
+public class ContainerEventMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ContainerEventMonitor.class);
+    private static final long RECONNECT_DELAY_SECONDS = 5;
+
+    private final DockerClient dockerClient;
+    private final String projectLabel;
+    private final Set<String> expectedStops = ConcurrentHashMap.newKeySet();
+    // Containers that ran out of memory, their exit is reported as such
+    private final Set<String> oomKilled = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService reconnectScheduler;
+
+    private volatile Listener listener;
+    private volatile ResultCallback.Adapter<Event> subscription;
+    private volatile long lastEventSeconds;
+    private volatile boolean closed;
+
+    public ContainerEventMonitor(DockerClient dockerClient, String projectLabel) {
+        this.dockerClient = dockerClient;
+        this.projectLabel = projectLabel;
+        this.reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "docker-events-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the event stream
+     * @param listener receives status changes of labelled containers
+     */
+    public void start(Listener listener) {
+        this.listener = listener;
+        this.lastEventSeconds = System.currentTimeMillis() / 1000;
+        subscribe();
+    }
+
+    /**
+     * Mark a container as being stopped by us, so its exit is not reported as a crash
+     * @param containerId the container about to be stopped
+     */
+    public void expectStop(String containerId) {
+        expectedStops.add(containerId);
+    }
+
+    private void subscribe() {
+        if (closed) {
+            return;
+        }
+
+        ResultCallback.Adapter<Event> callback = new ResultCallback.Adapter<>() {
+            @Override
+            public void onNext(Event event) {
+                handleEvent(event);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                if (!closed) {
+                    logger.debug("Docker event stream interrupted: {}", throwable.getMessage());
+                    scheduleReconnect();
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (!closed) {
+                    scheduleReconnect();
+                }
+            }
+        };
+
+        try {
+            // Resume from the last seen event so nothing is lost across reconnects
+            subscription = dockerClient.eventsCmd()
+                    .withEventTypeFilter(EventType.CONTAINER)
+                    .withLabelFilter(projectLabel)
+                    .withEventFilter("start", "die", "oom", "health_status")
+                    .withSince(String.valueOf(lastEventSeconds))
+                    .exec(callback);
+            logger.info("Subscribed to Docker container events");
+        } catch (Exception e) {
+            logger.warn("Failed to subscribe to Docker events: {}", e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    private void scheduleReconnect() {
+        if (closed || reconnectScheduler.isShutdown()) {
+            return;
+        }
+        reconnectScheduler.schedule(this::subscribe, RECONNECT_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void handleEvent(Event event) {
+        if (event.getTime() != null) {
+            lastEventSeconds = Math.max(lastEventSeconds, event.getTime());
+        }
+        if (event.getActor() == null) {
+            return;
+        }
+
+        Map<String, String> attributes = event.getActor().getAttributes() != null ?
+                event.getActor().getAttributes() : Collections.emptyMap();
+        String projectId = attributes.get(projectLabel);
+        String containerId = event.getActor().getId();
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (projectId == null || containerId == null || action == null) {
+            return;
+        }
+
+        Project.ProjectStatus status;
+        String reason;
+        boolean exited = false;
+
+        if (action.equals("start")) {
+            status = Project.ProjectStatus.RUNNING;
+            reason = "Container started";
+        } else if (action.equals("oom")) {
+            // The container may keep running, only the die that follows ends it
+            oomKilled.add(containerId);
+            status = Project.ProjectStatus.ERROR;
+            reason = "Container ran out of memory";
+        } else if (action.equals("die")) {
+            exited = true;
+            String exitCode = attributes.getOrDefault("exitCode", "0");
+            boolean outOfMemory = oomKilled.remove(containerId);
+            if (expectedStops.remove(containerId) || exitCode.equals("0")) {
+                status = Project.ProjectStatus.STOPPED;
+                reason = "Container exited";
+            } else {
+                status = Project.ProjectStatus.ERROR;
+                reason = outOfMemory ? "Container ran out of memory and exited with code " + exitCode
+                        : "Container exited with code " + exitCode;
+            }
+        } else if (action.startsWith("health_status")) {
+            boolean healthy = action.endsWith("healthy") && !action.endsWith("unhealthy");
+            status = healthy ? Project.ProjectStatus.RUNNING : Project.ProjectStatus.UNHEALTHY;
+            reason = healthy ? "Health check passing" : "Health check failing";
+        } else {
+            return;
+        }
+
+        logger.info("Container {} of project {}: {}", shortId(containerId), projectId, reason);
+
+        Listener current = listener;
+        if (current != null) {
+            try {
+                current.onStatusChanged(projectId, containerId, status, reason, exited);
+            } catch (Exception e) {
+                logger.error("Container event listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Close the event stream
+     */
+    public void close() {
+        closed = true;
+        reconnectScheduler.shutdownNow();
+        ResultCallback.Adapter<Event> current = subscription;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception e) {
+                logger.debug("Error closing Docker event stream: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static String shortId(String containerId) {
+        return containerId.length() > 12 ? containerId.substring(0, 12) : containerId;
+    }
+
+    /**
+     * Receives container state transitions
+     */
+    public interface Listener {
+        /**
+         * @param exited true if the container is gone, false while it still runs
+         */
+        void onStatusChanged(String projectId, String containerId, Project.ProjectStatus status, String reason,
+                             boolean exited);
+    }
+}
@@ -0,0 +1,308 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Follows the stdout/stderr of running containers and writes it into the
+ * project log, reconnecting if the stream drops while the container is
+ * still up. The services of a stack share one log, their lines tagged with
+ * the service name.
+ */
+public class ContainerLogStreamer {
+    private static final Logger logger = LoggerFactory.getLogger(ContainerLogStreamer.class);
+    private static final int MAX_RECONNECT_ATTEMPTS = 5;
+    private static final long INITIAL_RECONNECT_DELAY_MILLIS = 1000;
+    private static final long STABLE_CONNECTION_SECONDS = 30;
+
+    private final DockerClient dockerClient;
+    private final Map<String, Follower> followers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconnectScheduler;
+
+    public ContainerLogStreamer(DockerClient dockerClient) {
+        this.dockerClient = dockerClient;
+        this.reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "container-log-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start following a container, the logger is closed when following ends
+     * @param project the project the container belongs to
+     * @param containerId the container to follow
+     * @param projectLogger the run's log, now owned by the streamer
+     * @param sinceSeconds epoch second to stream output from, so a reused
+     *                     container doesn't replay its earlier runs
+     */
+    public void follow(Project project, String containerId, ProjectLogger projectLogger, int sinceSeconds) {
+        finishProject(project.getId(), "Superseded by a new run");
+        Follower follower = new Follower(project, null, containerId, projectLogger, new AtomicInteger(1),
+                sinceSeconds);
+        followers.put(followerKey(project.getId(), null), follower);
+        follower.connect();
+    }
+
+    /**
+     * Start following every service container of a stack into one log, which
+     * is closed once all of them have ended
+     * @param project the project the containers belong to
+     * @param containers container IDs by service name
+     * @param projectLogger the run's log, now owned by the streamer
+     * @param sinceSeconds epoch second to stream output from
+     */
+    public void followStack(Project project, Map<String, String> containers, ProjectLogger projectLogger,
+                            int sinceSeconds) {
+        finishProject(project.getId(), "Superseded by a new run");
+        // Counted up front so a service exiting early doesn't close the log on the others
+        AtomicInteger logUsers = new AtomicInteger(containers.size());
+        List<Follower> started = new ArrayList<>();
+        for (Map.Entry<String, String> container : containers.entrySet()) {
+            Follower follower = new Follower(project, container.getKey(), container.getValue(), projectLogger,
+                    logUsers, sinceSeconds);
+            followers.put(followerKey(project.getId(), container.getKey()), follower);
+            started.add(follower);
+        }
+        for (Follower follower : started) {
+            follower.connect();
+        }
+    }
+
+    /**
+     * Stop following a project's containers and close its log
+     * @param projectId the project ID
+     */
+    public void stop(String projectId) {
+        finishProject(projectId, "Project stopped");
+    }
+
+    private void finishProject(String projectId, String reason) {
+        for (Follower follower : new ArrayList<>(followers.values())) {
+            if (follower.project.getId().equals(projectId)) {
+                follower.finish(reason);
+            }
+        }
+    }
+
+    private static String followerKey(String projectId, String service) {
+        return service == null ? projectId : projectId + "/" + service;
+    }
+
+    /**
+     * Add a line of our own to the run log of a followed project
+     * @param projectId the project ID
+     * @param message the line to add
+     */
+    public void note(String projectId, String message) {
+        // The services of a stack share the log, one line is enough
+        for (Follower follower : followers.values()) {
+            if (follower.project.getId().equals(projectId) && !follower.finished) {
+                follower.projectLogger.logInfo(message);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stop following every container
+     */
+    public void stopAll() {
+        for (Follower follower : new ArrayList<>(followers.values())) {
+            follower.finish("Application shutting down");
+        }
+        reconnectScheduler.shutdownNow();
+    }
+
+    public boolean isFollowing(String projectId) {
+        for (Follower follower : followers.values()) {
+            if (follower.project.getId().equals(projectId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isContainerRunning(String containerId) {
+        try {
+            Boolean running = dockerClient.inspectContainerCmd(containerId).exec().getState().getRunning();
+            return Boolean.TRUE.equals(running);
+        } catch (Exception e) {
+            // Auto-removed containers are gone once they exit
+            return false;
+        }
+    }
+
+    private class Follower {
+        private final Project project;
+        // Stack service name, null for a single container project
+        private final String service;
+        private final String containerId;
+        private final ProjectLogger projectLogger;
+        private final AtomicInteger logUsers;
+        private final StringBuilder stdoutPartial = new StringBuilder();
+        private final StringBuilder stderrPartial = new StringBuilder();
+        private volatile ResultCallback.Adapter<Frame> callback;
+        private volatile boolean finished;
+        private volatile int sinceSeconds;
+        private volatile long connectedAtNanos;
+        private int attempts;
+
+        Follower(Project project, String service, String containerId, ProjectLogger projectLogger,
+                 AtomicInteger logUsers, int sinceSeconds) {
+            this.project = project;
+            this.service = service;
+            this.containerId = containerId;
+            this.projectLogger = projectLogger;
+            this.logUsers = logUsers;
+            this.sinceSeconds = sinceSeconds;
+        }
+
+        private String tag(String line) {
+            return service == null ? line : "[" + service + "] " + line;
+        }
+
+        void connect() {
+            if (finished) {
+                return;
+            }
+
+            ResultCallback.Adapter<Frame> frameCallback = new ResultCallback.Adapter<>() {
+                @Override
+                public void onNext(Frame frame) {
+                    attempts = 0;
+                    sinceSeconds = (int) (System.currentTimeMillis() / 1000);
+                    onFrame(frame);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    onStreamEnded(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    onStreamEnded(null);
+                }
+            };
+
+            try {
+                LogContainerCmd command = dockerClient.logContainerCmd(containerId)
+                        .withStdOut(true)
+                        .withStdErr(true)
+                        .withFollowStream(true);
+                // Resume where the previous stream stopped instead of replaying everything
+                if (sinceSeconds > 0) {
+                    command.withSince(sinceSeconds);
+                }
+                connectedAtNanos = System.nanoTime();
+                callback = command.exec(frameCallback);
+                logger.debug("Following output of container {} for {}", containerId, project.getName());
+            } catch (Exception e) {
+                onStreamEnded(e);
+            }
+        }
+
+        private synchronized void onFrame(Frame frame) {
+            if (finished || frame.getPayload() == null) {
+                return;
+            }
+
+            boolean stderr = frame.getStreamType() == StreamType.STDERR;
+            StringBuilder partial = stderr ? stderrPartial : stdoutPartial;
+            partial.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+
+            // Only complete lines are logged, the rest waits for the next frame
+            int newline;
+            while ((newline = partial.indexOf("\n")) >= 0) {
+                String line = partial.substring(0, newline);
+                partial.delete(0, newline + 1);
+                writeLine(line, stderr);
+            }
+
+            // Blocking here stalls the HTTP stream, pushing back on the daemon
+            projectLogger.awaitWriteCapacity();
+        }
+
+        private void writeLine(String line, boolean stderr) {
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (stderr) {
+                projectLogger.logContainerError(tag(line));
+            } else {
+                projectLogger.logContainer(tag(line));
+            }
+        }
+
+        private void onStreamEnded(Throwable error) {
+            if (finished) {
+                return;
+            }
+
+            // Idle streams are cut by the client's response timeout, that is not a failure
+            if (System.nanoTime() - connectedAtNanos > TimeUnit.SECONDS.toNanos(STABLE_CONNECTION_SECONDS)) {
+                attempts = 0;
+            }
+
+            if (isContainerRunning(containerId) && attempts < MAX_RECONNECT_ATTEMPTS) {
+                long delay = INITIAL_RECONNECT_DELAY_MILLIS << attempts;
+                attempts++;
+                logger.debug("Output stream of {} dropped ({}), reconnecting in {} ms",
+                        project.getName(), error != null ? error.getMessage() : "completed", delay);
+                try {
+                    reconnectScheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (Exception e) {
+                    // Scheduler shut down, fall through and finish
+                }
+            }
+            finish(error != null && attempts >= MAX_RECONNECT_ATTEMPTS ?
+                    "Lost container output: " + error.getMessage() : "Container exited");
+        }
+
+        synchronized void finish(String reason) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            followers.remove(followerKey(project.getId(), service), this);
+
+            ResultCallback.Adapter<Frame> current = callback;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (Exception e) {
+                    logger.debug("Error closing container log stream: {}", e.getMessage());
+                }
+            }
+
+            if (stdoutPartial.length() > 0) {
+                writeLine(stdoutPartial.toString(), false);
+            }
+            if (stderrPartial.length() > 0) {
+                writeLine(stderrPartial.toString(), true);
+            }
+            projectLogger.logInfo(tag(reason));
+            if (logUsers.decrementAndGet() == 0) {
+                projectLogger.close();
+            }
+        }
+    }
+}
@@ -2,12 +2,19 @@ package com.dockermanager.service;
 
 import com.dockermanager.model.Project;
 import com.dockermanager.model.ProjectType;
+import com.dockermanager.util.BuildContextArchiver;
+import com.dockermanager.util.BuildContextHasher;
 import com.dockermanager.util.DockerfileGenerator;
+import com.dockermanager.util.FileUtils;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.BuildImageResultCallback;
+import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerResponse;
 import com.github.dockerjava.api.model.*;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.exception.NotModifiedException;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
@@ -18,18 +25,78 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 public class DockerService {
     private static final Logger logger = LoggerFactory.getLogger(DockerService.class);
+    private static final String PROJECT_LABEL = "com.dockermanager.project-id";
+    private static final String SERVICE_LABEL = "com.dockermanager.service";
+    private static final String CONFIG_HASH_LABEL = "com.dockermanager.config-hash";
+    private static final String BACKEND_SERVICE = "backend";
+    private static final String FRONTEND_SERVICE = "frontend";
+    private static final int FINGERPRINT_TAG_LENGTH = 16;
+    // Bounds the memory used by the build context, the archiver blocks until the daemon catches up
+    private static final int CONTEXT_PIPE_SIZE = 1024 * 1024;
+    private static final long CONTEXT_PROGRESS_STEP = 50L * 1024 * 1024;
+    // Covers the image build, the lease is handed off as soon as the container starts
+    private static final long PORT_LEASE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int DEFAULT_BUILD_PARALLELISM = 4;
+    private final PortManagerService portManager;
+    // Context hash per project, valid while the watcher's change count is unchanged
+    private final Map<String, ContextHashMemo> contextHashMemos = new ConcurrentHashMap<>();
     private DockerClient dockerClient;
+    private ContainerEventMonitor eventMonitor;
+    private ContainerLogStreamer logStreamer;
+    private ReadinessProber readinessProber;
+    // Readiness outcome of each project's latest start
+    private final Map<String, CompletableFuture<ReadinessProber.Result>> readiness = new ConcurrentHashMap<>();
+    // Phase timings of each project's latest start
+    private final Map<String, StartupTimeline> startTimelines = new ConcurrentHashMap<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final ExecutorService buildExecutor;
+    // Caps concurrent image builds across all projects
+    private final Object buildGate = new Object();
+    private int buildLimit = DEFAULT_BUILD_PARALLELISM;
+    private int activeBuilds;
     private boolean dockerAvailable = false;
 
-    public DockerService() {
+    public DockerService(PortManagerService portManager) {
+        this.portManager = portManager;
+        AtomicInteger buildThreadCount = new AtomicInteger();
+        this.buildExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "image-build-" + buildThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            this.readinessProber = new ReadinessProber();
+        } catch (IOException e) {
+            // Projects then count as running as soon as their container starts
+            logger.warn("Readiness probing unavailable: {}", e.getMessage());
+        }
         checkDockerInstallation();
         if (dockerAvailable) {
             initializeDockerClient();
@@ -112,6 +179,7 @@ public class DockerService {
                     .build();
             
             dockerClient = DockerClientImpl.getInstance(config, httpClient);
+            logStreamer = new ContainerLogStreamer(dockerClient);
             
             // Test the connection
             dockerClient.pingCmd().exec();
@@ -123,6 +191,18 @@ public class DockerService {
         }
     }
 
+    /**
+     * Subscribe to lifecycle events of the containers this application created
+     * @param listener receives status changes pushed by the Docker daemon
+     */
+    public void startEventMonitor(ContainerEventMonitor.Listener listener) {
+        if (!dockerAvailable || eventMonitor != null) {
+            return;
+        }
+        eventMonitor = new ContainerEventMonitor(dockerClient, PROJECT_LABEL);
+        eventMonitor.start(listener);
+    }
+
     /**
      * Build and start a container for a project
      * @param project the project to run
@@ -134,93 +214,252 @@ public class DockerService {
             return null;
         }
 
+        StartupTimeline timeline = new StartupTimeline(project.getName());
+        startTimelines.put(project.getId(), timeline);
+        String result = "failed";
         try {
             logger.info("Starting project: {}", project.getName());
             project.setStatus(Project.ProjectStatus.STARTING);
 
             // Generate Dockerfile
-            if (project.getType() == ProjectType.FULLSTACK) {
-                return startFullStackProject(project);
-            } else {
-                return startSingleProject(project);
-            }
+            String containerId = project.getType() == ProjectType.FULLSTACK
+                    ? startFullStackProject(project, timeline)
+                    : startSingleProject(project, timeline);
+            result = "started";
+            return containerId;
 
         } catch (Exception e) {
             logger.error("Failed to start project: {}", e.getMessage(), e);
             project.setStatus(Project.ProjectStatus.ERROR);
             return null;
+        } finally {
+            metrics.timer("dockermanager_project_start_seconds",
+                    "Time from a start request to the running container, readiness excluded",
+                    "project", project.getName(), "result", result).recordSince(timeline.getStartNanos());
         }
     }
 
-    private String startSingleProject(Project project) throws Exception {
-        String imageName = sanitizeImageName(project.getName());
-        String imageTag = imageName + ":" + project.getId().substring(0, 8);
-        
+    private String startSingleProject(Project project, StartupTimeline timeline) throws Exception {
         // Initialize project logs
         ProjectLogger projectLogger = new ProjectLogger(project);
         projectLogger.logInfo("Starting project: " + project.getName());
         
-        // Check if image already exists
-        boolean imageExists = checkImageExists(imageTag);
+        // Hold the port for the whole start so a concurrent start or another process can't take it
+        try (PortManagerService.PortLease lease = portManager.acquireLease(
+                project.getId(), project.getPort(), PORT_LEASE_TTL_MILLIS)) {
+            return startSingleProject(project, projectLogger, lease, timeline);
+        } catch (Exception e) {
+            projectLogger.logError("Failed to start project: " + e.getMessage());
+            projectLogger.close();
+            throw e;
+        }
+    }
+
+    private String startSingleProject(Project project, ProjectLogger projectLogger,
+                                      PortManagerService.PortLease lease, StartupTimeline timeline) throws Exception {
+        String imageName = sanitizeImageName(project.getName());
+        
+        // Generate Dockerfile
+        boolean buildKit = project.getDockerOptions().isBuildKit();
+        String dockerfile = DockerfileGenerator.generateDockerfile(
+                project.getPath(), 
+                project.getType(), 
+                project.getPort(),
+                buildKit
+        );
         
-        if (!imageExists) {
-            logger.info("Image not found, building new image: {}", imageTag);
-            projectLogger.logInfo("Image not found, building new image: " + imageTag);
-            
-            // Generate Dockerfile
-            String dockerfile = DockerfileGenerator.generateDockerfile(
-                    project.getPath(), 
-                    project.getType(), 
-                    project.getPort()
-            );
-            
-            if (dockerfile != null) {
-                DockerfileGenerator.writeDockerfile(project.getPath(), dockerfile);
+        if (dockerfile != null) {
+            if (DockerfileGenerator.writeDockerfile(project.getPath(), dockerfile)) {
                 projectLogger.logInfo("Generated Dockerfile");
+            } else {
+                projectLogger.logInfo("Dockerfile is up to date");
             }
+            if (DockerfileGenerator.writeDockerIgnoreIfMissing(project.getPath(), project.getType())) {
+                projectLogger.logInfo("Generated .dockerignore");
+            }
+        } else {
+            dockerfile = readExistingDockerfile(project.getPath());
+        }
+        timeline.mark("dockerfile");
+        
+        // Look up the image by build-context fingerprint
+        String imageTag = resolveImageTag(project.getPath(), project.getId(), imageName, dockerfile);
+        timeline.mark("context_hash");
+        String imageId = inspectImageId(imageTag);
+        timeline.mark("image_check");
+        
+        if (imageId == null) {
+            logger.info("No image for current build context, building new image: {}", imageTag);
+            projectLogger.logInfo("No image for current build context, building new image: " + imageTag);
 
             // Build image with logging
             logger.info("Building Docker image: {}", imageTag);
             projectLogger.logInfo("Building Docker image: " + imageTag);
             
-            BuildImageResultCallback callback = new BuildImageResultCallback() {
-                @Override
-                public void onNext(BuildResponseItem item) {
-                    if (item.getStream() != null) {
-                        String logLine = item.getStream().trim();
-                        logger.debug("Build: {}", logLine);
-                        projectLogger.logBuild(logLine);
-                    }
-                    super.onNext(item);
-                }
-            };
-            
-            String imageId = dockerClient.buildImageCmd()
-                    .withDockerfile(new File(project.getPath(), "Dockerfile"))
-                    .withBaseDirectory(new File(project.getPath()))
-                    .withTags(new HashSet<>(Collections.singletonList(imageTag)))
-                    .exec(callback)
-                    .awaitImageId(5, TimeUnit.MINUTES);
+            Map<String, String> labels = Collections.singletonMap(PROJECT_LABEL, project.getId());
+            imageId = buildWithSlot(project.getPath(), imageTag, labels, buildKit, null, projectLogger);
             
             logger.info("Built image: {}", imageId);
             projectLogger.logInfo("Successfully built image: " + imageId);
+            
+            removeStaleImages(labels, imageTag);
+            timeline.mark("build");
         } else {
             logger.info("Using existing image: {}", imageTag);
-            projectLogger.logInfo("Using existing image: " + imageTag);
+            projectLogger.logInfo("Build context unchanged, using existing image: " + imageTag);
         }
 
-        // Create and start container
+        String containerId = createOrReuseContainer(project, imageTag, imageId, projectLogger);
+        timeline.mark("create");
+
+        lease.handOff();
+        int startedAt = (int) (System.currentTimeMillis() / 1000);
+        long startedAtNanos = System.nanoTime();
+        dockerClient.startContainerCmd(containerId).exec();
+        timeline.mark("start");
+        portManager.recordContainer(project.getId(), project.getPort(), containerId);
+        logger.info("Started container: {}", containerId);
+        projectLogger.logInfo("Started container successfully");
+        projectLogger.logInfo("Start phases: " + timeline.describe());
+        projectLogger.logInfo("Container is running on port: " + project.getPort());
+        projectLogger.logInfo("Access URL: http://localhost:" + project.getPort());
+
+        project.setContainerId(containerId);
+
+        // Keep the log open and capture the container's output until it stops
+        logStreamer.follow(project, containerId, projectLogger, startedAt);
+
+        // Stays STARTING until the app answers on its port
+        watchReadiness(project, containerId, List.of(project.getPort()), startedAtNanos, timeline)
+                .thenAccept(readiness -> logStreamer.note(project.getId(), describeReadiness(project, readiness)));
+
+        return containerId;
+    }
+
+    /**
+     * Probe a started project's ports and move it from STARTING to RUNNING
+     * once all answer, or to UNHEALTHY when its readiness timeout runs out.
+     * Nothing changes if the project stopped or moved to another container
+     * meanwhile.
+     * @param project the started project
+     * @param containerId the container the probes are for
+     * @param ports the published host ports
+     * @param startedAtNanos when the container was started, time to ready is measured from here
+     * @param timeline the start's timeline, gets the ready phase
+     * @return the outcome, also available from {@link #awaitReady(Project)}
+     */
+    private CompletableFuture<ReadinessProber.Result> watchReadiness(Project project, String containerId,
+                                                                     List<Integer> ports, long startedAtNanos,
+                                                                     StartupTimeline timeline) {
+        BooleanSupplier wanted = () -> project.getStatus() == Project.ProjectStatus.STARTING
+                && containerId.equals(project.getContainerId());
+
+        CompletableFuture<ReadinessProber.Result> outcome;
+        if (readinessProber == null) {
+            outcome = CompletableFuture.completedFuture(new ReadinessProber.Result(ReadinessProber.Result.Outcome.READY,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos), 0, null));
+        } else {
+            Project.DockerOptions options = project.getDockerOptions();
+            Project.ReadinessCheck check = options.getReadinessCheck() != null ?
+                    options.getReadinessCheck() : Project.ReadinessCheck.HTTP;
+            long timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, options.getReadinessTimeoutSeconds()));
+
+            List<CompletableFuture<ReadinessProber.Result>> probes = new ArrayList<>();
+            for (int port : ports) {
+                probes.add(readinessProber.probe(project.getName() + ":" + port, port, check, timeoutMillis,
+                        startedAtNanos, wanted));
+            }
+            // Ready when the slowest port is, otherwise the first failure
+            outcome = CompletableFuture.allOf(probes.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+                ReadinessProber.Result combined = null;
+                for (CompletableFuture<ReadinessProber.Result> probe : probes) {
+                    ReadinessProber.Result result = probe.join();
+                    if (!result.isReady()) {
+                        return result;
+                    }
+                    if (combined == null || result.getElapsedMillis() > combined.getElapsedMillis()) {
+                        combined = result;
+                    }
+                }
+                return combined;
+            });
+        }
+
+        outcome = outcome.thenApply(result -> {
+            if (result.getOutcome() != ReadinessProber.Result.Outcome.ABANDONED && wanted.getAsBoolean()) {
+                project.setStatus(result.isReady() ? Project.ProjectStatus.RUNNING : Project.ProjectStatus.UNHEALTHY);
+            }
+            if (result.isReady()) {
+                timeline.record("ready", TimeUnit.MILLISECONDS.toNanos(result.getElapsedMillis()));
+            }
+            metrics.counter("dockermanager_readiness_total", "Outcomes of readiness checks after a start",
+                    "project", project.getName(), "outcome", result.getOutcome().name().toLowerCase()).inc();
+            logger.info(describeReadiness(project, result));
+            return result;
+        });
+        readiness.put(project.getId(), outcome);
+        return outcome;
+    }
+
+    private static String describeReadiness(Project project, ReadinessProber.Result result) {
+        return switch (result.getOutcome()) {
+            case READY -> String.format("%s is ready after %.1fs", project.getName(), result.getElapsedMillis() / 1000.0);
+            case TIMED_OUT -> String.format("%s did not answer within %.1fs (%d attempts, last: %s)",
+                    project.getName(), result.getElapsedMillis() / 1000.0, result.getAttempts(), result.getDetail());
+            case ABANDONED -> "Stopped waiting for " + project.getName() + " to answer";
+        };
+    }
+
+    /**
+     * Get the phase timings of a project's latest start
+     * @param projectId the project ID
+     * @return the timeline, or null if the project wasn't started in this session
+     */
+    public StartupTimeline getLastStartTimeline(String projectId) {
+        return startTimelines.get(projectId);
+    }
+
+    /**
+     * Get the readiness outcome of a project's latest start
+     * @param project the project, after {@link #startProject(Project)} returned a container
+     * @return completes once the project is ready, unhealthy or no longer starting
+     */
+    public CompletableFuture<ReadinessProber.Result> awaitReady(Project project) {
+        CompletableFuture<ReadinessProber.Result> outcome = readiness.get(project.getId());
+        if (outcome == null) {
+            return CompletableFuture.completedFuture(
+                    new ReadinessProber.Result(ReadinessProber.Result.Outcome.ABANDONED, 0, 0, null));
+        }
+        return outcome;
+    }
+
+    /**
+     * Get the container for a single-container project. Fast-start projects
+     * reuse their stopped container while its configuration hash matches;
+     * other projects get a fresh, auto-removed container.
+     * @param project the project to run
+     * @param imageTag the image to run
+     * @param imageId the ID of that image, part of the configuration hash
+     * @param projectLogger the run's log, null when pre-warming
+     * @return the ID of a created, not yet running container
+     */
+    private String createOrReuseContainer(Project project, String imageTag, String imageId,
+                                          ProjectLogger projectLogger) {
+        boolean fastStart = project.getDockerOptions().isFastStart();
+        String containerName = sanitizeContainerName(project.getName() + "-" + project.getId().substring(0, 8));
+        
         ExposedPort exposedPort = project.getType() == ProjectType.HTML ? 
                 ExposedPort.tcp(80) : ExposedPort.tcp(project.getPort());
         
         Ports portBindings = new Ports();
         portBindings.bind(exposedPort, Ports.Binding.bindPort(project.getPort()));
 
+        // Kept containers survive stops so the next start can skip creating one
         HostConfig hostConfig = HostConfig.newHostConfig()
                 .withPortBindings(portBindings)
                 .withMemory(project.getDockerOptions().getMemoryLimit() * 1024 * 1024)
                 .withNanoCPUs((long) (project.getDockerOptions().getCpuLimit() * 1_000_000_000))
-                .withAutoRemove(true);
+                .withAutoRemove(!fastStart);
 
         // Add volume mounts if any
         if (!project.getDockerOptions().getVolumeMounts().isEmpty()) {
@@ -237,113 +476,760 @@ public class DockerService {
             envVars.add(entry.getKey() + "=" + entry.getValue());
         }
 
-        CreateContainerResponse container = dockerClient.createContainerCmd(imageTag)
-                .withName(sanitizeContainerName(project.getName() + "-" + project.getId().substring(0, 8)))
+        Map<String, String> labels = new HashMap<>();
+        labels.put(PROJECT_LABEL, project.getId());
+        if (fastStart) {
+            String configHash = containerConfigHash(project, imageId, containerName, exposedPort, envVars);
+            String warm = findWarmContainer(project, configHash);
+            if (warm != null) {
+                logger.info("Reusing container: {}", warm);
+                if (projectLogger != null) {
+                    projectLogger.logInfo("Configuration unchanged, reusing container: " + warm);
+                }
+                return warm;
+            }
+            labels.put(CONFIG_HASH_LABEL, configHash);
+        }
+
+        CreateContainerCmd createCommand = dockerClient.createContainerCmd(imageTag)
+                .withName(containerName)
                 .withHostConfig(hostConfig)
                 .withEnv(envVars)
-                .exec();
+                .withLabels(labels);
+        CreateContainerResponse container;
+        try {
+            container = createCommand.exec();
+        } catch (ConflictException e) {
+            // A container kept from when the project had fast start enabled holds the name
+            removeIdleContainers(project);
+            container = createCommand.exec();
+        }
 
         String containerId = container.getId();
         logger.info("Created container: {}", containerId);
-        projectLogger.logInfo("Created container: " + containerId);
+        if (projectLogger != null) {
+            projectLogger.logInfo("Created container: " + containerId);
+        }
+        return containerId;
+    }
 
-        dockerClient.startContainerCmd(containerId).exec();
-        logger.info("Started container: {}", containerId);
-        projectLogger.logInfo("Started container successfully");
-        projectLogger.logInfo("Container is running on port: " + project.getPort());
-        projectLogger.logInfo("Access URL: http://localhost:" + project.getPort());
+    /**
+     * Find a stopped container of the project created with the given
+     * configuration, removing kept containers that no longer match
+     * @return the matching container ID, or null
+     */
+    private String findWarmContainer(Project project, String configHash) {
+        String match = null;
+        for (Container container : listIdleContainers(project)) {
+            if (match == null && configHash.equals(container.getLabels().get(CONFIG_HASH_LABEL))) {
+                match = container.getId();
+                continue;
+            }
+            removeContainer(container.getId());
+            logger.info("Removed outdated container: {}", container.getId());
+        }
+        return match;
+    }
 
-        project.setStatus(Project.ProjectStatus.RUNNING);
-        project.setContainerId(containerId);
+    private static String containerConfigHash(Project project, String imageId, String containerName,
+                                              ExposedPort exposedPort, List<String> envVars) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<String> values = List.of(
+                    imageId,
+                    containerName,
+                    exposedPort.toString(),
+                    String.valueOf(project.getPort()),
+                    String.valueOf(project.getDockerOptions().getMemoryLimit()),
+                    String.valueOf(project.getDockerOptions().getCpuLimit()),
+                    new TreeMap<>(project.getDockerOptions().getVolumeMounts()).toString(),
+                    String.join("\n", envVars));
+            for (String value : values) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 
-        // Close the logger
-        projectLogger.close();
+    /**
+     * List the project's single-project containers that exist but aren't running
+     */
+    private List<Container> listIdleContainers(Project project) {
+        List<Container> idle = new ArrayList<>();
+        List<Container> containers = dockerClient.listContainersCmd()
+                .withShowAll(true)
+                .withLabelFilter(Collections.singletonMap(PROJECT_LABEL, project.getId()))
+                .exec();
+        for (Container container : containers) {
+            boolean service = container.getLabels() != null && container.getLabels().containsKey(SERVICE_LABEL);
+            if (!service && !"running".equals(container.getState())) {
+                idle.add(container);
+            }
+        }
+        return idle;
+    }
 
-        return containerId;
+    /**
+     * Remove the stopped containers kept for a project by fast start
+     * @param project the project
+     */
+    public void removeIdleContainers(Project project) {
+        if (!dockerAvailable) {
+            return;
+        }
+        try {
+            for (Container container : listIdleContainers(project)) {
+                removeContainer(container.getId());
+                logger.info("Removed kept container: {}", container.getId());
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to remove kept containers of {}: {}", project.getName(), e.getMessage());
+        }
+    }
+
+    private void removeContainer(String containerId) {
+        try {
+            dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+        } catch (NotFoundException e) {
+            logger.debug("Container {} already removed", containerId);
+        }
+    }
+
+    /**
+     * Create, without starting, the container of a fast-start project whose
+     * image is already built, so its first start only has to start it
+     * @param project the project to pre-warm
+     */
+    public void prewarm(Project project) {
+        if (!dockerAvailable || !project.getDockerOptions().isFastStart()
+                || project.getType() == ProjectType.FULLSTACK
+                || project.getStatus() != Project.ProjectStatus.STOPPED) {
+            return;
+        }
+
+        try {
+            String dockerfile = DockerfileGenerator.generateDockerfile(project.getPath(), project.getType(),
+                    project.getPort(), project.getDockerOptions().isBuildKit());
+            if (dockerfile == null) {
+                dockerfile = readExistingDockerfile(project.getPath());
+            }
+            String imageTag = resolveImageTag(project.getPath(), project.getId(),
+                    sanitizeImageName(project.getName()), dockerfile);
+            String imageId = inspectImageId(imageTag);
+            if (imageId == null) {
+                // Building is left to the first start
+                logger.debug("No image to pre-warm {} with", project.getName());
+                return;
+            }
+            createOrReuseContainer(project, imageTag, imageId, null);
+            logger.info("Pre-warmed container for {}", project.getName());
+        } catch (Exception e) {
+            logger.warn("Failed to pre-warm {}: {}", project.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Set how many images may build at the same time, across all projects
+     * @param parallelism the cap, at least 1
+     */
+    public void setBuildParallelism(int parallelism) {
+        synchronized (buildGate) {
+            buildLimit = Math.max(1, parallelism);
+            buildGate.notifyAll();
+        }
+        logger.info("Build parallelism set to {}", buildLimit);
+    }
+
+    /**
+     * Build an image once a build slot is free
+     * @param service the stack service the build belongs to, tags its log lines, null for single projects
+     * @return the built image ID
+     */
+    private String buildWithSlot(String contextPath, String imageTag, Map<String, String> labels, boolean buildKit,
+                                 String service, ProjectLogger projectLogger) throws Exception {
+        synchronized (buildGate) {
+            if (activeBuilds >= buildLimit) {
+                projectLogger.logInfo(logPrefix(service) + "Waiting for one of " + buildLimit + " build slots");
+            }
+            long waitStart = System.nanoTime();
+            while (activeBuilds >= buildLimit) {
+                buildGate.wait();
+            }
+            activeBuilds++;
+            metrics.timer("dockermanager_build_slot_wait_seconds", "Time builds waited for a free build slot")
+                    .recordSince(waitStart);
+        }
+        long buildStart = System.nanoTime();
+        String result = "failed";
+        try {
+            String imageId = buildKit
+                    ? buildImageWithBuildKit(contextPath, imageTag, labels, service, projectLogger)
+                    : buildImage(contextPath, imageTag, labels, service, projectLogger);
+            result = "built";
+            return imageId;
+        } finally {
+            metrics.timer("dockermanager_image_build_seconds", "Time to build an image, context upload included",
+                    "builder", buildKit ? "buildkit" : "daemon", "result", result).recordSince(buildStart);
+            synchronized (buildGate) {
+                activeBuilds--;
+                buildGate.notifyAll();
+            }
+        }
+    }
+
+    private static String logPrefix(String service) {
+        return service != null ? "[" + service + "] " : "";
+    }
+
+    /**
+     * Build an image from a directory, streaming the build context
+     * through a bounded pipe while the daemon reads it
+     * @param contextPath the build context directory
+     * @param imageTag the tag of the new image
+     * @param labels labels of the new image
+     * @param service the stack service being built, null for single projects
+     * @param projectLogger the run's log
+     * @return the built image ID
+     */
+    private String buildImage(String contextPath, String imageTag, Map<String, String> labels,
+                              String service, ProjectLogger projectLogger) throws Exception {
+        PipedInputStream contextStream = new PipedInputStream(CONTEXT_PIPE_SIZE);
+        PipedOutputStream contextSink = new PipedOutputStream(contextStream);
+        AtomicReference<Exception> archiveError = new AtomicReference<>();
+        startContextArchiver(contextPath, contextSink, service, projectLogger, archiveError);
+        
+        String prefix = logPrefix(service);
+        BuildImageResultCallback callback = new BuildImageResultCallback() {
+            @Override
+            public void onNext(BuildResponseItem item) {
+                if (item.getStream() != null) {
+                    String logLine = item.getStream().trim();
+                    logger.debug("Build: {}{}", prefix, logLine);
+                    projectLogger.logBuild(prefix + logLine);
+                    if (logLine.startsWith("Step ")) {
+                        metrics.counter("dockermanager_build_steps_total", "Dockerfile steps run by daemon builds").inc();
+                    }
+                }
+                if (item.getStatus() != null && item.getStatus().startsWith("Pulling from")) {
+                    metrics.counter("dockermanager_build_base_pulls_total",
+                            "Base images pulled during daemon builds").inc();
+                }
+                if (item.isErrorIndicated()) {
+                    metrics.counter("dockermanager_build_errors_total", "Errors reported by daemon builds").inc();
+                }
+                super.onNext(item);
+            }
+        };
+        
+        try (InputStream in = contextStream) {
+            return dockerClient.buildImageCmd(in)
+                    .withTags(new HashSet<>(Collections.singletonList(imageTag)))
+                    .withLabels(labels)
+                    .exec(callback)
+                    .awaitImageId(5, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            // A broken context is the real cause, the daemon only saw a truncated stream
+            Exception archiveFailure = archiveError.get();
+            if (archiveFailure != null) {
+                throw new IOException("Failed to send build context: " + archiveFailure.getMessage(), archiveFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Build an image with BuildKit through the docker CLI. docker-java only
+     * drives the legacy builder, which ignores cache mounts.
+     * @param contextPath the build context directory
+     * @param imageTag the tag of the new image
+     * @param labels labels of the new image
+     * @param service the stack service being built, null for single projects
+     * @param projectLogger the run's log
+     * @return the built image ID
+     */
+    private String buildImageWithBuildKit(String contextPath, String imageTag, Map<String, String> labels,
+                                          String service, ProjectLogger projectLogger) throws Exception {
+        Path iidFile = Files.createTempFile("docker-build-", ".iid");
+        try {
+            List<String> command = new ArrayList<>(List.of("docker", "build", "--progress=plain", "--tag", imageTag));
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                command.add("--label");
+                command.add(label.getKey() + "=" + label.getValue());
+            }
+            command.addAll(List.of("--iidfile", iidFile.toString(), "-"));
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.environment().put("DOCKER_BUILDKIT", "1");
+            processBuilder.redirectErrorStream(true);
+            
+            Process process = processBuilder.start();
+            AtomicReference<Exception> archiveError = new AtomicReference<>();
+            Thread archiver = startContextArchiver(contextPath, process.getOutputStream(), service,
+                    projectLogger, archiveError);
+            
+            // Read on its own thread so a build that hangs without closing its output still times out
+            String prefix = logPrefix(service);
+            Thread outputPump = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        logger.debug("Build: {}{}", prefix, line);
+                        projectLogger.logBuild(prefix + line);
+                    }
+                } catch (IOException e) {
+                    // The stream closes under the reader when a timed out build is killed
+                    logger.debug("Build output ended: {}", e.getMessage());
+                }
+            }, "buildkit-output-" + imageTag);
+            outputPump.setDaemon(true);
+            outputPump.start();
+            
+            if (!process.waitFor(5, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                archiver.interrupt();
+                throw new RuntimeException("BuildKit build timed out");
+            }
+            outputPump.join(TimeUnit.SECONDS.toMillis(10));
+            archiver.join(TimeUnit.SECONDS.toMillis(10));
+            
+            Exception archiveFailure = archiveError.get();
+            if (archiveFailure != null) {
+                throw new IOException("Failed to send build context: " + archiveFailure.getMessage(), archiveFailure);
+            }
+            if (process.exitValue() != 0) {
+                throw new RuntimeException("BuildKit build failed with exit code: " + process.exitValue());
+            }
+            return Files.readString(iidFile).trim();
+        } finally {
+            Files.deleteIfExists(iidFile);
+        }
     }
 
-    private String startFullStackProject(Project project) throws Exception {
-        // For full-stack, use docker-compose
+    /**
+     * Write a build context as a tar stream on a background thread
+     * @param contextPath the build context directory
+     * @param sink receives the archive, closed when done
+     * @param service the stack service being built, tags the progress lines, may be null
+     * @param projectLogger the run's log
+     * @param archiveError set if reading the context fails, a failing sink is not reported
+     * @return the started archiver thread
+     */
+    private Thread startContextArchiver(String contextPath, OutputStream sink, String service,
+                                        ProjectLogger projectLogger, AtomicReference<Exception> archiveError) {
+        String prefix = logPrefix(service);
+        Thread archiver = new Thread(() -> {
+            long uploadStart = System.nanoTime();
+            long[] sent = new long[1];
+            long[] nextReport = {CONTEXT_PROGRESS_STEP};
+            boolean[] sinkFailed = new boolean[1];
+            try (OutputStream out = new FilterOutputStream(sink) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    try {
+                        out.write(b, off, len);
+                    } catch (IOException e) {
+                        sinkFailed[0] = true;
+                        throw e;
+                    }
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    try {
+                        out.flush();
+                    } catch (IOException e) {
+                        sinkFailed[0] = true;
+                        throw e;
+                    }
+                }
+            }) {
+                int fileCount = BuildContextArchiver.writeContext(contextPath, out, bytes -> {
+                    sent[0] = bytes;
+                    if (bytes >= nextReport[0]) {
+                        projectLogger.logInfo(String.format("%sSent %.1f MB of build context", prefix, bytes / 1048576.0));
+                        nextReport[0] += CONTEXT_PROGRESS_STEP;
+                    }
+                });
+                projectLogger.logInfo(String.format("%sSent build context: %d files, %.1f MB",
+                        prefix, fileCount, sent[0] / 1048576.0));
+                metrics.timer("dockermanager_build_context_upload_seconds",
+                        "Time to archive and send a build context").recordSince(uploadStart);
+                metrics.histogram("dockermanager_build_context_bytes", "Size of the build contexts sent",
+                        MetricsRegistry.SIZE_BUCKETS).observe(sent[0]);
+            } catch (Exception e) {
+                // A closed sink means the build already failed on the other side
+                if (!sinkFailed[0]) {
+                    archiveError.set(e);
+                }
+            }
+        }, "build-context-" + new File(contextPath).getName());
+        archiver.setDaemon(true);
+        archiver.start();
+        return archiver;
+    }
+
+    private String startFullStackProject(Project project, StartupTimeline timeline) throws Exception {
+        ProjectLogger projectLogger = new ProjectLogger(project);
+        projectLogger.logInfo("Starting full-stack project: " + project.getName());
+        
+        // Same port protection as a single container for both published ports, covering the builds
+        try (PortManagerService.PortLease lease = portManager.acquireLease(
+                project.getId(), project.getPort(), PORT_LEASE_TTL_MILLIS);
+             PortManagerService.PortLease frontendLease = portManager.acquireLease(
+                project.getId(), project.getFrontendPort(), PORT_LEASE_TTL_MILLIS)) {
+            return startFullStackProject(project, projectLogger, List.of(lease, frontendLease), timeline);
+        } catch (Exception e) {
+            projectLogger.logError("Failed to start project: " + e.getMessage());
+            projectLogger.close();
+            throw e;
+        }
+    }
+
+    private String startFullStackProject(Project project, ProjectLogger projectLogger,
+                                         List<PortManagerService.PortLease> leases, StartupTimeline timeline)
+            throws Exception {
         int backendPort = project.getPort();
-        int frontendPort = backendPort + 1;
+        int frontendPort = project.getFrontendPort();
         
+        // The compose file stays as a portable description of the stack, starting doesn't need it
         String composeContent = DockerfileGenerator.generateDockerCompose(
                 project.getPath(), frontendPort, backendPort);
-        DockerfileGenerator.writeDockerCompose(project.getPath(), composeContent);
-        
-        // Generate individual Dockerfiles
-        String backendPath = new File(project.getPath(), detectBackendDir(project.getPath())).getPath();
-        String frontendPath = new File(project.getPath(), detectFrontendDir(project.getPath())).getPath();
-        
-        DockerfileGenerator.writeDockerfile(backendPath, 
-                DockerfileGenerator.generateBackendDockerfile(backendPath));
-        DockerfileGenerator.writeDockerfile(frontendPath, 
-                DockerfileGenerator.generateFrontendDockerfile(frontendPath));
-        
-        // Use docker-compose command
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                "docker-compose", "-f", 
-                new File(project.getPath(), "docker-compose.yml").getPath(),
-                "up", "-d"
-        );
-        processBuilder.directory(new File(project.getPath()));
-        processBuilder.redirectErrorStream(true);
+        if (DockerfileGenerator.writeDockerCompose(project.getPath(), composeContent)) {
+            projectLogger.logInfo("Generated docker-compose.yml");
+        }
+        
+        String backendDir = detectBackendDir(project.getPath());
+        String frontendDir = detectFrontendDir(project.getPath());
+        String backendPath = new File(project.getPath(), backendDir).getPath();
+        String frontendPath = new File(project.getPath(), frontendDir).getPath();
+        boolean buildKit = project.getDockerOptions().isBuildKit();
         
-        Process process = processBuilder.start();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        // Mirrors the services of the generated compose file
+        Map<String, String> backendEnv = new LinkedHashMap<>();
+        backendEnv.put("NODE_ENV", "development");
+        backendEnv.put("PORT", String.valueOf(backendPort));
+        Map<String, String> frontendEnv = new LinkedHashMap<>();
+        frontendEnv.put("REACT_APP_API_URL", "http://localhost:" + backendPort);
+        List<StackService> services = List.of(
+                new StackService(BACKEND_SERVICE, backendDir, backendPath, ProjectType.NODE, backendPort,
+                        backendEnv, Collections.emptyList(),
+                        () -> DockerfileGenerator.generateBackendDockerfile(backendPath, buildKit)),
+                new StackService(FRONTEND_SERVICE, frontendDir, frontendPath, ProjectType.REACT, frontendPort,
+                        frontendEnv, Collections.singletonList(BACKEND_SERVICE),
+                        () -> DockerfileGenerator.generateFrontendDockerfile(frontendPath, buildKit)));
         
-        String line;
-        while ((line = reader.readLine()) != null) {
-            logger.info("Docker Compose: {}", line);
+        timeline.mark("compose");
+        long buildStart = System.nanoTime();
+        Map<String, String> images = buildStackImages(project, services, buildKit, projectLogger);
+        projectLogger.logInfo(String.format("Images of %d services ready in %.1f s", services.size(),
+                (System.nanoTime() - buildStart) / 1e9));
+        timeline.mark("build");
+        String network = ensureStackNetwork(project);
+        
+        // Services that outlived a crashed sibling would hold the container names
+        ProjectContainer leftover = listRunningProjectContainers().get(project.getId());
+        if (leftover != null && !leftover.getServiceContainers().isEmpty()) {
+            projectLogger.logInfo("Removing services left over from the previous run");
+            for (String containerId : leftover.getServiceContainers().values()) {
+                if (eventMonitor != null) {
+                    eventMonitor.expectStop(containerId);
+                }
+                try {
+                    // Removed synchronously, a plain stop frees the name only once auto-removal catches up
+                    dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+                } catch (NotFoundException e) {
+                    logger.debug("Container {} already removed", containerId);
+                }
+            }
+        }
+        
+        // Started in dependency order, so a service's dependencies are up before it
+        Map<String, String> containers = new LinkedHashMap<>();
+        timeline.mark("network");
+        leases.forEach(PortManagerService.PortLease::handOff);
+        int startedAt = (int) (System.currentTimeMillis() / 1000);
+        long startedAtNanos = System.nanoTime();
+        try {
+            for (StackService service : startOrder(services)) {
+                containers.put(service.name, startStackService(project, service, images.get(service.name),
+                        network, projectLogger));
+            }
+        } catch (Exception e) {
+            // Don't leave half a stack running
+            stopStackContainers(containers);
+            throw e;
         }
         
-        int exitCode = process.waitFor();
+        timeline.mark("start");
+        portManager.recordContainer(project.getId(), backendPort, containers.get(BACKEND_SERVICE));
+        portManager.recordContainer(project.getId(), frontendPort, containers.get(FRONTEND_SERVICE));
+        projectLogger.logInfo("All services are up");
+        projectLogger.logInfo("Start phases: " + timeline.describe());
+        projectLogger.logInfo("Access URL: http://localhost:" + frontendPort);
         
-        if (exitCode == 0) {
-            project.setStatus(Project.ProjectStatus.RUNNING);
-            project.setContainerId("compose-" + project.getId());
-            return project.getContainerId();
-        } else {
-            throw new RuntimeException("Docker Compose failed with exit code: " + exitCode);
+        project.setServiceContainers(containers);
+        project.setContainerId(containers.get(FRONTEND_SERVICE));
+        
+        // Keep the log open and capture every service's output until the stack stops
+        logStreamer.followStack(project, containers, projectLogger, startedAt);
+        
+        watchReadiness(project, project.getContainerId(), List.of(backendPort, frontendPort), startedAtNanos,
+                timeline)
+                .thenAccept(readiness -> logStreamer.note(project.getId(), describeReadiness(project, readiness)));
+        return project.getContainerId();
+    }
+
+    /**
+     * Generate and build the images of a stack's services in parallel, reusing
+     * unchanged ones. Daemon builds still respect the build parallelism cap.
+     * @return image tags by service name
+     */
+    private Map<String, String> buildStackImages(Project project, List<StackService> services,
+                                                 boolean buildKit, ProjectLogger projectLogger) throws Exception {
+        String imageName = sanitizeImageName(project.getName());
+        Map<String, CompletableFuture<String>> builds = new LinkedHashMap<>();
+        for (StackService service : services) {
+            builds.put(service.name, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return buildStackImage(project, service, imageName, buildKit, projectLogger);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, buildExecutor));
+        }
+        
+        Map<String, String> images = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, CompletableFuture<String>> build : builds.entrySet()) {
+                images.put(build.getKey(), build.getValue().join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        return images;
+    }
+
+    private String buildStackImage(Project project, StackService service, String imageName,
+                                   boolean buildKit, ProjectLogger projectLogger) throws Exception {
+        // Recorded in the project's manifest along with the compose file
+        String dockerfile = service.dockerfile.get();
+        if (DockerfileGenerator.writeGenerated(project.getPath(), service.directory + "/Dockerfile", dockerfile)) {
+            projectLogger.logInfo("Generated Dockerfile for " + service.name);
+        }
+        // Keeps node_modules and .git out of the service's context hash and upload
+        if (DockerfileGenerator.writeDockerIgnoreIfMissing(service.contextPath, service.type)) {
+            projectLogger.logInfo("Generated .dockerignore for " + service.name);
+        }
+        
+        Map<String, String> labels = new HashMap<>();
+        labels.put(PROJECT_LABEL, project.getId());
+        labels.put(SERVICE_LABEL, service.name);
+        
+        String imageTag = resolveImageTag(service.contextPath, project.getId() + "/" + service.name,
+                imageName + "-" + service.name, dockerfile);
+        if (checkImageExists(imageTag)) {
+            projectLogger.logInfo("Build context of " + service.name + " unchanged, using existing image: " + imageTag);
+            return imageTag;
+        }
+        
+        logger.info("Building Docker image: {}", imageTag);
+        projectLogger.logInfo("Building image for " + service.name + ": " + imageTag);
+        long start = System.nanoTime();
+        String imageId = buildWithSlot(service.contextPath, imageTag, labels, buildKit, service.name, projectLogger);
+        projectLogger.logInfo(String.format("Successfully built image for %s in %.1f s: %s", service.name,
+                (System.nanoTime() - start) / 1e9, imageId));
+        
+        removeStaleImages(labels, imageTag);
+        return imageTag;
+    }
+
+    /**
+     * Get the project's network, creating it on first start
+     * @return the network name
+     */
+    private String ensureStackNetwork(Project project) {
+        String name = stackNetworkName(project);
+        boolean exists = dockerClient.listNetworksCmd().withNameFilter(name).exec().stream()
+                .anyMatch(network -> name.equals(network.getName()));
+        if (!exists) {
+            dockerClient.createNetworkCmd()
+                    .withName(name)
+                    .withDriver("bridge")
+                    .withLabels(Collections.singletonMap(PROJECT_LABEL, project.getId()))
+                    .exec();
+            logger.info("Created network: {}", name);
+        }
+        return name;
+    }
+
+    private String stackNetworkName(Project project) {
+        return sanitizeContainerName(project.getName() + "-" + project.getId().substring(0, 8));
+    }
+
+    private String startStackService(Project project, StackService service, String imageTag,
+                                     String network, ProjectLogger projectLogger) {
+        ExposedPort exposedPort = ExposedPort.tcp(service.port);
+        Ports portBindings = new Ports();
+        portBindings.bind(exposedPort, Ports.Binding.bindPort(service.port));
+        
+        // Source is mounted for live reload, node_modules stays the one installed in the image
+        HostConfig hostConfig = HostConfig.newHostConfig()
+                .withPortBindings(portBindings)
+                .withMemory(project.getDockerOptions().getMemoryLimit() * 1024 * 1024)
+                .withNanoCPUs((long) (project.getDockerOptions().getCpuLimit() * 1_000_000_000))
+                .withNetworkMode(network)
+                .withBinds(new Bind(new File(service.contextPath).getAbsolutePath(), new Volume("/app")))
+                .withAutoRemove(true);
+        
+        List<String> envVars = new ArrayList<>();
+        for (Map.Entry<String, String> entry : service.environment.entrySet()) {
+            envVars.add(entry.getKey() + "=" + entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : project.getEnvironmentVariables().entrySet()) {
+            envVars.add(entry.getKey() + "=" + entry.getValue());
+        }
+        
+        Map<String, String> labels = new HashMap<>();
+        labels.put(PROJECT_LABEL, project.getId());
+        labels.put(SERVICE_LABEL, service.name);
+        
+        CreateContainerResponse container = dockerClient.createContainerCmd(imageTag)
+                .withName(sanitizeContainerName(project.getName() + "-" + service.name + "-"
+                        + project.getId().substring(0, 8)))
+                .withHostConfig(hostConfig)
+                .withEnv(envVars)
+                .withVolumes(new Volume("/app/node_modules"))
+                .withAliases(service.name)
+                .withLabels(labels)
+                .exec();
+        
+        String containerId = container.getId();
+        dockerClient.startContainerCmd(containerId).exec();
+        logger.info("Started {} container: {}", service.name, containerId);
+        projectLogger.logInfo("Started " + service.name + " on port " + service.port + ": " + containerId);
+        return containerId;
+    }
+
+    /**
+     * Order services so each comes after the services it depends on
+     */
+    private static List<StackService> startOrder(List<StackService> services) {
+        Map<String, StackService> byName = new LinkedHashMap<>();
+        for (StackService service : services) {
+            byName.put(service.name, service);
+        }
+        
+        List<StackService> ordered = new ArrayList<>();
+        Set<String> visiting = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        for (StackService service : services) {
+            visitService(service, byName, visiting, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private static void visitService(StackService service, Map<String, StackService> byName,
+                                     Set<String> visiting, Set<String> visited, List<StackService> ordered) {
+        if (visited.contains(service.name)) {
+            return;
+        }
+        if (!visiting.add(service.name)) {
+            throw new IllegalStateException("Dependency cycle at service " + service.name);
+        }
+        for (String dependency : service.dependsOn) {
+            StackService required = byName.get(dependency);
+            if (required == null) {
+                throw new IllegalStateException(service.name + " depends on unknown service " + dependency);
+            }
+            visitService(required, byName, visiting, visited, ordered);
+        }
+        visiting.remove(service.name);
+        visited.add(service.name);
+        ordered.add(service);
+    }
+
+    /**
+     * Stop a stack's containers, dependents first
+     * @param containers container IDs by service, in start order
+     */
+    private void stopStackContainers(Map<String, String> containers) {
+        List<String> stopOrder = new ArrayList<>(containers.values());
+        Collections.reverse(stopOrder);
+        for (String containerId : stopOrder) {
+            if (eventMonitor != null) {
+                eventMonitor.expectStop(containerId);
+            }
+            try {
+                dockerClient.stopContainerCmd(containerId).withTimeout(10).exec();
+                logger.info("Stopped container: {}", containerId);
+            } catch (NotFoundException | NotModifiedException e) {
+                // Already gone or already stopped
+                logger.debug("Container {} was not running", containerId);
+            }
+        }
+    }
+
+    private void removeStackNetwork(Project project) {
+        try {
+            dockerClient.removeNetworkCmd(stackNetworkName(project)).exec();
+        } catch (Exception e) {
+            // Still has endpoints while auto-removal finishes, reused on the next start
+            logger.debug("Kept network {}: {}", stackNetworkName(project), e.getMessage());
         }
     }
 
     /**
      * Stop a running container
      * @param project the project to stop
+     * @return true if the project is stopped afterwards
      */
-    public void stopProject(Project project) {
-        if (!dockerAvailable || project.getContainerId() == null) {
-            return;
+    public boolean stopProject(Project project) {
+        if (project.getContainerId() == null && project.getServiceContainers().isEmpty()) {
+            return true;
+        }
+        if (!dockerAvailable) {
+            return false;
         }
 
+        long start = System.nanoTime();
+        String result = "failed";
         try {
             logger.info("Stopping project: {}", project.getName());
             
-            if (project.getContainerId().startsWith("compose-")) {
-                // Stop docker-compose
-                ProcessBuilder processBuilder = new ProcessBuilder(
-                        "docker-compose", "-f",
-                        new File(project.getPath(), "docker-compose.yml").getPath(),
-                        "down"
-                );
-                processBuilder.directory(new File(project.getPath()));
-                Process process = processBuilder.start();
-                process.waitFor();
+            if (!project.getServiceContainers().isEmpty()) {
+                stopStackContainers(project.getServiceContainers());
+                removeStackNetwork(project);
+                logStreamer.stop(project.getId());
             } else {
                 // Stop single container
+                if (eventMonitor != null) {
+                    eventMonitor.expectStop(project.getContainerId());
+                }
                 dockerClient.stopContainerCmd(project.getContainerId())
                         .withTimeout(10)
                         .exec();
                 
                 logger.info("Stopped container: {}", project.getContainerId());
+                logStreamer.stop(project.getId());
             }
 
             project.setStatus(Project.ProjectStatus.STOPPED);
             project.setContainerId(null);
+            project.setServiceContainers(null);
+            result = "stopped";
+            return true;
 
         } catch (Exception e) {
             logger.error("Failed to stop project: {}", e.getMessage(), e);
+            return false;
+        } finally {
+            metrics.timer("dockermanager_project_stop_seconds", "Time to stop a project's containers",
+                    "project", project.getName(), "result", result).recordSince(start);
         }
     }
 
@@ -353,7 +1239,7 @@ public class DockerService {
      * @return container status or null
      */
     public String getContainerStatus(String containerId) {
-        if (!dockerAvailable || containerId == null || containerId.startsWith("compose-")) {
+        if (!dockerAvailable || containerId == null) {
             return null;
         }
 
@@ -366,21 +1252,20 @@ public class DockerService {
         }
     }
 
-    /**
-     * Stop all running containers
-     */
-    public void stopAllContainers(List<Project> projects) {
-        for (Project project : projects) {
-            if (project.getStatus() == Project.ProjectStatus.RUNNING) {
-                stopProject(project);
-            }
-        }
-    }
-
     /**
      * Clean up resources
      */
     public void close() {
+        buildExecutor.shutdownNow();
+        if (readinessProber != null) {
+            readinessProber.close();
+        }
+        if (eventMonitor != null) {
+            eventMonitor.close();
+        }
+        if (logStreamer != null) {
+            logStreamer.stopAll();
+        }
         if (dockerClient != null) {
             try {
                 dockerClient.close();
@@ -401,35 +1286,168 @@ public class DockerService {
      * @return true if the image exists
      */
     private boolean checkImageExists(String imageTag) {
+        return inspectImageId(imageTag) != null;
+    }
+    
+    /**
+     * Look up the ID of a Docker image
+     * @param imageTag the image tag
+     * @return the image ID, or null if there is no such image
+     */
+    private String inspectImageId(String imageTag) {
         if (!dockerAvailable) {
-            return false;
+            return null;
         }
         
+        long start = System.nanoTime();
+        String imageId;
         try {
-            dockerClient.inspectImageCmd(imageTag).exec();
-            return true;
+            imageId = dockerClient.inspectImageCmd(imageTag).exec().getId();
         } catch (Exception e) {
-            return false;
+            imageId = null;
         }
+        metrics.timer("dockermanager_image_inspect_seconds", "Time to look up an image by tag").recordSince(start);
+        metrics.counter("dockermanager_image_lookups_total", "Image lookups by whether the image existed",
+                "result", imageId != null ? "hit" : "miss").inc();
+        return imageId;
     }
     
     /**
-     * Delete a project's Docker image
-     * @param project the project whose image should be deleted
+     * Resolve the image tag for a build context
+     * @param contextPath the build context directory, the project's or one of its services'
+     * @param memoKey identifies the context in the hash memo
+     * @param imageName the sanitized image repository name
+     * @param dockerfile the Dockerfile text the image is built from
+     * @return image tag derived from the context fingerprint
+     */
+    private String resolveImageTag(String contextPath, String memoKey, String imageName,
+                                   String dockerfile) throws IOException {
+        String contextHash = hashContext(contextPath, memoKey);
+        String fingerprint = BuildContextHasher.fingerprint(contextHash, dockerfile);
+        return imageName + ":" + fingerprint.substring(0, FINGERPRINT_TAG_LENGTH);
+    }
+
+    private String hashContext(String contextPath, String memoKey) throws IOException {
+        // Stat before hashing so a file changed during the walk invalidates the result
+        String statSignature = BuildContextHasher.statContext(contextPath);
+        ContextHashMemo memo = contextHashMemos.get(memoKey);
+        if (memo != null && memo.statSignature.equals(statSignature) && memo.contextPath.equals(contextPath)) {
+            logger.debug("Build context {} unchanged since last hash", contextPath);
+            return memo.contextHash;
+        }
+
+        String contextHash = BuildContextHasher.hashContext(contextPath);
+        contextHashMemos.put(memoKey, new ContextHashMemo(contextPath, statSignature, contextHash));
+        return contextHash;
+    }
+
+    private String readExistingDockerfile(String contextPath) {
+        try {
+            return FileUtils.readFileContent(new File(contextPath, "Dockerfile").getPath());
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Delete all Docker images built for a project
+     * @param project the project whose images should be deleted
      */
     public void deleteProjectImage(Project project) {
         if (!dockerAvailable) {
             return;
         }
         
+        // Kept containers pin the images and would outlive the rebuild
+        removeIdleContainers(project);
+        
+        for (Image image : listImages(Collections.singletonMap(PROJECT_LABEL, project.getId()))) {
+            try {
+                dockerClient.removeImageCmd(image.getId()).withForce(true).exec();
+                logger.info("Deleted image: {}", image.getId());
+            } catch (Exception e) {
+                logger.debug("Failed to delete image {}: {}", image.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Remove images that were built from an older build context
+     * @param labels labels of the freshly built image, images carrying all of them are candidates
+     * @param currentTag the tag of the freshly built image
+     */
+    private void removeStaleImages(Map<String, String> labels, String currentTag) {
+        for (Image image : listImages(labels)) {
+            String[] repoTags = image.getRepoTags();
+            if (repoTags != null && Arrays.asList(repoTags).contains(currentTag)) {
+                continue;
+            }
+            try {
+                dockerClient.removeImageCmd(image.getId()).exec();
+                logger.info("Removed stale image: {}", image.getId());
+            } catch (Exception e) {
+                // Still used by a container or shared with another tag
+                logger.debug("Kept stale image {}: {}", image.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * List running project containers and the host ports they publish, in one call
+     * @return containers keyed by project ID
+     */
+    public Map<String, ProjectContainer> listRunningProjectContainers() {
+        Map<String, ProjectContainer> running = new HashMap<>();
+        if (!dockerAvailable) {
+            return running;
+        }
+        
         try {
-            String imageName = sanitizeImageName(project.getName());
-            String imageTag = imageName + ":" + project.getId().substring(0, 8);
+            List<Container> containers = dockerClient.listContainersCmd()
+                    .withLabelFilter(Collections.singletonList(PROJECT_LABEL))
+                    .exec();
+            
+            // Oldest first, so services of a stack come back in the order they were started
+            containers.sort(Comparator.comparing(container -> container.getCreated() != null ? container.getCreated() : 0L));
             
-            dockerClient.removeImageCmd(imageTag).exec();
-            logger.info("Deleted image: {}", imageTag);
+            for (Container container : containers) {
+                String projectId = container.getLabels() != null ? container.getLabels().get(PROJECT_LABEL) : null;
+                if (projectId == null) {
+                    continue;
+                }
+                
+                ProjectContainer entry = running.computeIfAbsent(projectId,
+                        id -> new ProjectContainer(id, container.getId(), new HashSet<>()));
+                if (container.getPorts() != null) {
+                    for (ContainerPort port : container.getPorts()) {
+                        if (port.getPublicPort() != null) {
+                            entry.publicPorts.add(port.getPublicPort());
+                        }
+                    }
+                }
+                
+                String service = container.getLabels().get(SERVICE_LABEL);
+                if (service != null) {
+                    entry.serviceContainers.put(service, container.getId());
+                    if (FRONTEND_SERVICE.equals(service)) {
+                        entry.containerId = container.getId();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to list project containers: {}", e.getMessage());
+        }
+        return running;
+    }
+
+    private List<Image> listImages(Map<String, String> labels) {
+        try {
+            return dockerClient.listImagesCmd()
+                    .withLabelFilter(labels)
+                    .exec();
         } catch (Exception e) {
-            logger.debug("Failed to delete image (may not exist): {}", e.getMessage());
+            logger.debug("Failed to list project images: {}", e.getMessage());
+            return Collections.emptyList();
         }
     }
 
@@ -454,5 +1472,77 @@ public class DockerService {
         if (new File(projectPath, "web").exists()) return "web";
         return "frontend";
     }
-}
 
+    /**
+     * A running container of a project as reported by the daemon
+     */
+    public static class ProjectContainer {
+        private final String projectId;
+        private String containerId;
+        private final Set<Integer> publicPorts;
+        private final Map<String, String> serviceContainers = new LinkedHashMap<>();
+
+        public ProjectContainer(String projectId, String containerId, Set<Integer> publicPorts) {
+            this.projectId = projectId;
+            this.containerId = containerId;
+            this.publicPorts = publicPorts;
+        }
+
+        public String getProjectId() {
+            return projectId;
+        }
+
+        public String getContainerId() {
+            return containerId;
+        }
+
+        public Set<Integer> getPublicPorts() {
+            return publicPorts;
+        }
+
+        /**
+         * Containers by service name for a multi-container project, empty otherwise
+         */
+        public Map<String, String> getServiceContainers() {
+            return serviceContainers;
+        }
+    }
+
+    /**
+     * One container of a multi-container project
+     */
+    private static class StackService {
+        private final String name;
+        private final String directory;
+        private final String contextPath;
+        private final ProjectType type;
+        private final int port;
+        private final Map<String, String> environment;
+        private final List<String> dependsOn;
+        private final Supplier<String> dockerfile;
+
+        StackService(String name, String directory, String contextPath, ProjectType type, int port,
+                     Map<String, String> environment, List<String> dependsOn, Supplier<String> dockerfile) {
+            this.name = name;
+            this.directory = directory;
+            this.contextPath = contextPath;
+            this.type = type;
+            this.port = port;
+            this.environment = environment;
+            this.dependsOn = dependsOn;
+            this.dockerfile = dockerfile;
+        }
+    }
+
+    private static class ContextHashMemo {
+        private final String contextPath;
+        private final String statSignature;
+        private final String contextHash;
+
+        ContextHashMemo(String contextPath, String statSignature, String contextHash) {
+            this.contextPath = contextPath;
+            this.statSignature = statSignature;
+            this.contextHash = contextHash;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs project lifecycle operations (start, stop, rebuild...) on a shared,
+ * bounded pool of named threads. Operations of the same project run one
+ * after another in submission order, operations of different projects run
+ * in parallel.
+ */
+public class LifecycleExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(LifecycleExecutor.class);
+    private static final int DEFAULT_THREADS = 8;
+    private static final int MAX_PENDING_PER_PROJECT = 4;
+
+    private final ThreadPoolExecutor pool;
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final MetricsRegistry.Counter completedCount;
+    private final MetricsRegistry.Counter rejectedCount;
+
+    public LifecycleExecutor() {
+        this(DEFAULT_THREADS);
+    }
+
+    public LifecycleExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "lifecycle-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.completedCount = metrics.counter("dockermanager_lifecycle_completed_total",
+                "Lifecycle operations that ran to completion");
+        this.rejectedCount = metrics.counter("dockermanager_lifecycle_rejected_total",
+                "Lifecycle operations rejected because too many were pending for the project");
+        metrics.gauge("dockermanager_lifecycle_queued", "Lifecycle operations waiting for their project's lane",
+                this::getQueueDepth);
+        metrics.gauge("dockermanager_lifecycle_active", "Lifecycle operations currently running",
+                this::getActiveCount);
+    }
+
+    /**
+     * Queue an operation behind any other operation of the same project
+     * @param project the project the operation belongs to
+     * @param operation short name used for thread names and logs
+     * @param task the work to run
+     * @return future completing with the task result, or exceptionally if rejected or cancelled;
+     *         cancelling it drops the task if still queued or interrupts it if running
+     */
+    public <T> CompletableFuture<T> submit(Project project, String operation, Callable<T> task) {
+        Task<T> queued = new Task<>(project, operation, task);
+        queued.future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                abandon(queued);
+            }
+        });
+
+        synchronized (lanes) {
+            Lane lane = lanes.computeIfAbsent(project.getId(), id -> new Lane());
+            if (lane.pending.size() >= MAX_PENDING_PER_PROJECT) {
+                rejectedCount.inc();
+                queued.future.completeExceptionally(new RejectedExecutionException(
+                        "Too many pending operations for project " + project.getName()));
+                return queued.future;
+            }
+            lane.pending.addLast(queued);
+            pendingCount.incrementAndGet();
+            if (lane.running == null) {
+                dispatchNext(project.getId(), lane);
+            }
+        }
+
+        logger.debug("Queued {} for {} (pending: {}, active: {})",
+                operation, project.getName(), pendingCount.get(), pool.getActiveCount());
+        return queued.future;
+    }
+
+    /**
+     * Cancel the pending operations of a project and interrupt the running one
+     * @param projectId the project whose operations should be cancelled
+     * @return true if anything was cancelled
+     */
+    public boolean cancel(String projectId) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(projectId);
+            if (lane == null) {
+                return false;
+            }
+
+            boolean cancelled = false;
+            while (!lane.pending.isEmpty()) {
+                Task<?> task = lane.pending.removeFirst();
+                pendingCount.decrementAndGet();
+                task.future.completeExceptionally(new CancellationException("Cancelled before it started"));
+                cancelled = true;
+            }
+            if (lane.running != null && lane.running.thread != null) {
+                logger.info("Interrupting {} of {}", lane.running.operation, lane.running.project.getName());
+                lane.running.thread.interrupt();
+                cancelled = true;
+            }
+            return cancelled;
+        }
+    }
+
+    private void abandon(Task<?> task) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(task.project.getId());
+            if (lane == null) {
+                return;
+            }
+            if (lane.pending.remove(task)) {
+                pendingCount.decrementAndGet();
+            } else if (lane.running == task && task.thread != null) {
+                logger.info("Interrupting {} of {}", task.operation, task.project.getName());
+                task.thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Check if a project has an operation running or queued
+     */
+    public boolean isBusy(String projectId) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(projectId);
+            return lane != null && (lane.running != null || !lane.pending.isEmpty());
+        }
+    }
+
+    /**
+     * Get the name of the operation currently running for a project
+     * @return the operation name, or null if idle
+     */
+    public String getRunningOperation(String projectId) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(projectId);
+            return lane != null && lane.running != null ? lane.running.operation : null;
+        }
+    }
+
+    public int getQueueDepth() {
+        return pendingCount.get();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Stop accepting work and wait for running operations to finish
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(timeout, unit)) {
+                logger.warn("Lifecycle operations still running at shutdown, interrupting");
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Must be called while holding the lanes lock
+    private void dispatchNext(String projectId, Lane lane) {
+        Task<?> next = lane.pending.pollFirst();
+        if (next == null) {
+            lane.running = null;
+            lanes.remove(projectId);
+            return;
+        }
+
+        pendingCount.decrementAndGet();
+        lane.running = next;
+        try {
+            pool.execute(() -> run(projectId, next));
+        } catch (RejectedExecutionException e) {
+            rejectedCount.inc();
+            next.future.completeExceptionally(e);
+            dispatchNext(projectId, lane);
+        }
+    }
+
+    private <T> void run(String projectId, Task<T> task) {
+        Thread thread = Thread.currentThread();
+        String originalName = thread.getName();
+        thread.setName(originalName + " [" + task.operation + " " + task.project.getName() + "]");
+
+        synchronized (lanes) {
+            task.thread = thread;
+        }
+
+        try {
+            task.future.complete(task.callable.call());
+        } catch (Throwable t) {
+            task.future.completeExceptionally(t);
+        } finally {
+            synchronized (lanes) {
+                task.thread = null;
+                // Clear a pending cancel so it does not leak into the next task
+                Thread.interrupted();
+                completedCount.inc();
+                Lane lane = lanes.get(projectId);
+                if (lane != null) {
+                    dispatchNext(projectId, lane);
+                }
+            }
+            thread.setName(originalName);
+        }
+    }
+
+    private static class Lane {
+        private final Deque<Task<?>> pending = new ArrayDeque<>();
+        private Task<?> running;
+    }
+
+    private static class Task<T> {
+        private final Project project;
+        private final String operation;
+        private final Callable<T> callable;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private Thread thread;
+
+        Task(Project project, String operation, Callable<T> callable) {
+            this.project = project;
+            this.operation = operation;
+            this.callable = callable;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Applies the per-project log retention policy in the background:
+ * finished runs are gzip-compressed, and the oldest runs are deleted once
+ * a project exceeds its file count, total size or age limit.
+ */
+public class LogRetentionService {
+    private static final Logger logger = LoggerFactory.getLogger(LogRetentionService.class);
+    private static final LogRetentionService INSTANCE = new LogRetentionService();
+
+    private final ExecutorService executor;
+    private final Set<String> scheduledDirectories = ConcurrentHashMap.newKeySet();
+
+    private LogRetentionService() {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-retention");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    public static LogRetentionService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a retention pass over a project's log directory
+     * @param logDirectory the project's log directory
+     * @param options the project's retention policy
+     * @param activeFiles log files still being written, never touched
+     */
+    public void schedule(String logDirectory, Project.LogOptions options, Set<String> activeFiles) {
+        // Coalesce repeated requests for the same directory
+        if (!scheduledDirectories.add(logDirectory)) {
+            return;
+        }
+
+        executor.execute(() -> {
+            scheduledDirectories.remove(logDirectory);
+            try {
+                apply(new File(logDirectory), options, activeFiles);
+            } catch (Exception e) {
+                logger.error("Log retention failed for {}: {}", logDirectory, e.getMessage(), e);
+            }
+        });
+    }
+
+    private void apply(File directory, Project.LogOptions options, Set<String> activeFiles) {
+        File[] files = directory.listFiles((d, name) -> ProjectLogger.isRunLogFile(name));
+        if (files == null) {
+            return;
+        }
+
+        // Run file names embed their start time, so name order is start order
+        List<File> runs = new ArrayList<>(Arrays.asList(files));
+        runs.sort(Comparator.comparing(File::getName).reversed());
+
+        List<File> retained = new ArrayList<>();
+        for (File run : runs) {
+            if (activeFiles.contains(run.getAbsolutePath())) {
+                continue;
+            }
+            if (options.isCompressOldLogs() && run.getName().endsWith(".log")) {
+                run = compress(run);
+            }
+            retained.add(run);
+        }
+
+        long maxAgeMillis = Duration.ofDays(options.getMaxAgeDays()).toMillis();
+        long maxTotalBytes = options.getMaxTotalSizeMb() * 1024 * 1024;
+        long now = System.currentTimeMillis();
+        long totalBytes = 0;
+        int kept = 0;
+        int deleted = 0;
+
+        for (File run : retained) {
+            long size = run.length();
+            boolean tooOld = options.getMaxAgeDays() > 0 && now - run.lastModified() > maxAgeMillis;
+            boolean tooMany = options.getMaxFiles() > 0 && kept >= options.getMaxFiles();
+            boolean tooBig = options.getMaxTotalSizeMb() > 0 && totalBytes + size > maxTotalBytes;
+
+            if (tooOld || tooMany || tooBig) {
+                if (run.delete()) {
+                    deleted++;
+                }
+                continue;
+            }
+            kept++;
+            totalBytes += size;
+        }
+
+        if (deleted > 0) {
+            logger.info("Deleted {} old log runs in {}", deleted, directory);
+        }
+    }
+
+    private File compress(File log) {
+        long originalSize = log.length();
+        File compressed = new File(log.getPath() + ".gz");
+        File partial = new File(log.getPath() + ".gz.tmp");
+
+        try (InputStream in = Files.newInputStream(log.toPath());
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial.toPath()), 64 * 1024)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            logger.warn("Failed to compress {}: {}", log, e.getMessage());
+            partial.delete();
+            return log;
+        }
+
+        try {
+            Files.move(partial.toPath(), compressed.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            compressed.setLastModified(log.lastModified());
+            Files.delete(log.toPath());
+            logger.debug("Compressed {} ({} -> {} bytes)", log.getName(), originalSize, compressed.length());
+            return compressed;
+        } catch (IOException e) {
+            logger.warn("Failed to replace {} with its compressed copy: {}", log, e.getMessage());
+            partial.delete();
+            return log;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.dockermanager.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of recent log lines for one project. Producers append
+ * without locking or blocking and overwrite the oldest lines when the ring
+ * is full; readers keep their own cursor and drain in batches.
+ */
+public class LogRingBuffer {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final Map<String, LogRingBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    public LogRingBuffer(int capacity) {
+        // Round up to a power of two so the slot index is a mask
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Get the shared buffer of a project, creating it on first use
+     * @param projectId the project ID
+     * @return the project's buffer
+     */
+    public static LogRingBuffer forProject(String projectId) {
+        return buffers.computeIfAbsent(projectId, id -> new LogRingBuffer(DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Drop the buffer of a project that was removed
+     * @param projectId the project ID
+     */
+    public static void remove(String projectId) {
+        buffers.remove(projectId);
+    }
+
+    /**
+     * Append a line, overwriting the oldest one if the ring is full
+     * @param line the log line
+     */
+    public void append(String line) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new Entry(sequence, line));
+    }
+
+    /**
+     * Copy lines from a cursor into a list
+     * @param cursor sequence of the first line the reader has not seen yet
+     * @param maxLines maximum number of lines to copy
+     * @param out receives the lines
+     * @return the cursor to pass on the next call
+     */
+    public long drainTo(long cursor, int maxLines, List<String> out) {
+        long end = nextSequence.get();
+        long oldest = Math.max(0, end - capacity);
+
+        if (cursor < oldest) {
+            out.add("... " + (oldest - cursor) + " lines skipped ...");
+            cursor = oldest;
+        }
+
+        int copied = 0;
+        while (cursor < end && copied < maxLines) {
+            Entry entry = slots.get((int) (cursor & mask));
+            if (entry == null || entry.sequence < cursor) {
+                // Claimed by a producer but not published yet
+                break;
+            }
+            if (entry.sequence > cursor) {
+                // Overwritten while we were reading, jump to what survived
+                out.add("... " + (entry.sequence - cursor) + " lines skipped ...");
+                cursor = entry.sequence;
+                continue;
+            }
+            out.add(entry.line);
+            cursor++;
+            copied++;
+        }
+        return cursor;
+    }
+
+    /**
+     * Sequence of the oldest line still held, the starting cursor for a new reader
+     */
+    public long getOldestSequence() {
+        return Math.max(0, nextSequence.get() - capacity);
+    }
+
+    public long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static class Entry {
+        private final long sequence;
+        private final String line;
+
+        Entry(long sequence, String line) {
+            this.sequence = sequence;
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.dockermanager.service;
+
+import com.dockermanager.util.FileUtils;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the {@link MetricsRegistry} in the Prometheus text format: to a
+ * file rewritten every few seconds, and optionally over HTTP on localhost
+ * for a Prometheus server to scrape.
+ */
+public class MetricsExporter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsExporter.class);
+    private static final long EXPORT_INTERVAL_SECONDS = 15;
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private final Path exportFile;
+    private final ScheduledExecutorService scheduler;
+    private HttpServer server;
+
+    public MetricsExporter(MetricsRegistry registry, Path exportFile) {
+        this.registry = registry;
+        this.exportFile = exportFile;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::writeFile, EXPORT_INTERVAL_SECONDS, EXPORT_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Serve the metrics at http://127.0.0.1:port/metrics
+     * @param port the port, 0 leaves the endpoint off
+     */
+    public void startEndpoint(int port) {
+        if (port <= 0) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            logger.info("Serving metrics at http://127.0.0.1:{}/metrics", port);
+        } catch (IOException e) {
+            // The file export still works
+            logger.warn("Failed to start metrics endpoint on port {}: {}", port, e.getMessage());
+            server = null;
+        }
+    }
+
+    private void writeFile() {
+        try {
+            FileUtils.writeFileAtomically(exportFile, registry.scrape());
+        } catch (Exception e) {
+            logger.warn("Failed to write metrics to {}: {}", exportFile, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (server != null) {
+            server.stop(0);
+        }
+        // Keep the final values of this session
+        writeFile();
+    }
+}
@@ -0,0 +1,312 @@
+package com.dockermanager.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In-process counters, gauges, histograms and timers, keyed by name and label
+ * values and rendered in the Prometheus text format. Recording doesn't
+ * lock; a metric is created the first time its name and labels are used.
+ */
+public class MetricsRegistry {
+    // Seconds, from a quick API call up to a long image build
+    public static final double[] DURATION_BUCKETS =
+            {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+    public static final double[] SIZE_BUCKETS =
+            {1 << 20, 10 << 20, 50 << 20, 100 << 20, 500 << 20, 1 << 30};
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get or create a counter
+     * @param name the metric name
+     * @param help the description shown in the export
+     * @param labels alternating label names and values
+     * @return the counter for these label values
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter", null).child(labels);
+    }
+
+    /**
+     * Register a gauge read when the metrics are scraped, replacing any
+     * gauge already registered with the same name and labels
+     * @param name the metric name
+     * @param help the description shown in the export
+     * @param value supplies the current value, called from the exporter's thread
+     * @param labels alternating label names and values
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge", null).register(labels, new Gauge(value));
+    }
+
+    /**
+     * Get or create a histogram
+     * @param name the metric name
+     * @param help the description shown in the export
+     * @param buckets upper bounds of the buckets, ascending
+     * @param labels alternating label names and values
+     * @return the histogram for these label values
+     */
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, help, "histogram", buckets).child(labels);
+    }
+
+    /**
+     * Get or create a timer, a histogram of durations in seconds
+     * @param name the metric name, by convention ending in _seconds
+     * @param help the description shown in the export
+     * @param labels alternating label names and values
+     * @return the timer for these label values
+     */
+    public Timer timer(String name, String help, String... labels) {
+        return new Timer(histogram(name, help, DURATION_BUCKETS, labels));
+    }
+
+    private Family family(String name, String help, String type, double[] buckets) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, buckets));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+        }
+        return family;
+    }
+
+    /**
+     * Render every metric in the Prometheus text exposition format
+     * @return the exposition text
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : new TreeMap<>(families).values()) {
+            family.render(out);
+        }
+        return out.toString();
+    }
+
+    private static String formatValue(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "+Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final double[] buckets;
+        private final Map<List<String>, Object> children = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String type, double[] buckets) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.buckets = buckets;
+        }
+
+        Object child(String[] labels) {
+            return children.computeIfAbsent(key(labels),
+                    key -> buckets == null ? new Counter() : new Histogram(buckets));
+        }
+
+        void register(String[] labels, Object metric) {
+            children.put(key(labels), metric);
+        }
+
+        private List<String> key(String[] labels) {
+            if (labels.length % 2 != 0) {
+                throw new IllegalArgumentException("Labels of " + name + " must be name/value pairs");
+            }
+            return Arrays.asList(labels.clone());
+        }
+
+        void render(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help.replace("\n", " ")).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+
+            Map<String, List<String>> sorted = new TreeMap<>();
+            for (List<String> labels : children.keySet()) {
+                sorted.put(labelText(labels, null), labels);
+            }
+            for (Map.Entry<String, List<String>> child : sorted.entrySet()) {
+                Object metric = children.get(child.getValue());
+                if (metric instanceof Counter counter) {
+                    out.append(name).append(child.getKey()).append(' ').append(counter.get()).append('\n');
+                    continue;
+                }
+                if (metric instanceof Gauge gauge) {
+                    out.append(name).append(child.getKey()).append(' ').append(formatValue(gauge.get())).append('\n');
+                    continue;
+                }
+
+                Histogram histogram = (Histogram) metric;
+                long[] counts = histogram.bucketCounts();
+                long cumulative = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    cumulative += counts[i];
+                    double bound = i < buckets.length ? buckets[i] : Double.POSITIVE_INFINITY;
+                    out.append(name).append("_bucket").append(labelText(child.getValue(), formatValue(bound)))
+                            .append(' ').append(cumulative).append('\n');
+                }
+                out.append(name).append("_sum").append(child.getKey()).append(' ')
+                        .append(formatValue(histogram.getSum())).append('\n');
+                out.append(name).append("_count").append(child.getKey()).append(' ').append(cumulative).append('\n');
+            }
+        }
+
+        private static String labelText(List<String> labels, String le) {
+            if (labels.isEmpty() && le == null) {
+                return "";
+            }
+            StringBuilder text = new StringBuilder("{");
+            for (int i = 0; i < labels.size(); i += 2) {
+                if (i > 0) {
+                    text.append(',');
+                }
+                text.append(labels.get(i)).append("=\"").append(escape(labels.get(i + 1))).append('"');
+            }
+            if (le != null) {
+                if (!labels.isEmpty()) {
+                    text.append(',');
+                }
+                text.append("le=\"").append(le).append('"');
+            }
+            return text.append('}').toString();
+        }
+    }
+
+    /**
+     * A count that only goes up
+     */
+    public static class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void inc() {
+            count.increment();
+        }
+
+        public void inc(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * A value that goes up and down, read when scraped
+     */
+    public static class Gauge {
+        private final DoubleSupplier value;
+
+        Gauge(DoubleSupplier value) {
+            this.value = value;
+        }
+
+        public double get() {
+            return value.getAsDouble();
+        }
+    }
+
+    /**
+     * Observed values counted into fixed buckets, with their sum
+     */
+    public static class Histogram {
+        private final double[] bounds;
+        // One more than there are bounds, the last counts values above all of them
+        private final LongAdder[] counts;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.counts = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double value) {
+            int bucket = Arrays.binarySearch(bounds, value);
+            if (bucket < 0) {
+                bucket = -bucket - 1;
+            }
+            counts[bucket].increment();
+            sum.add(value);
+        }
+
+        public long getCount() {
+            long total = 0;
+            for (LongAdder count : counts) {
+                total += count.sum();
+            }
+            return total;
+        }
+
+        public double getSum() {
+            return sum.sum();
+        }
+
+        long[] bucketCounts() {
+            long[] snapshot = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                snapshot[i] = counts[i].sum();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * A histogram of durations, recorded in seconds
+     */
+    public static class Timer {
+        private final Histogram histogram;
+
+        Timer(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        public void record(long nanos) {
+            histogram.observe(nanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        /**
+         * Record the time since a System.nanoTime() reading
+         * @param startNanos the reading at the start
+         * @return the recorded duration in nanoseconds
+         */
+        public long recordSince(long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            record(nanos);
+            return nanos;
+        }
+
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        public double getTotalSeconds() {
+            return histogram.getSum();
+        }
+    }
+}
@@ -1,22 +1,76 @@
 package com.dockermanager.service;
 
+import com.dockermanager.model.Project;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Hands out host ports to projects. All state is guarded by the instance
+ * lock, so allocations from the FX thread and from background start
+ * threads never see the same port as free.
+ */
 public class PortManagerService {
     private static final Logger logger = LoggerFactory.getLogger(PortManagerService.class);
     private static final int PORT_RANGE_START = 3000;
     private static final int PORT_RANGE_END = 9000;
+    private static final String[] PROC_TCP_TABLES = {"/proc/net/tcp", "/proc/net/tcp6"};
+    private static final String TCP_STATE_LISTEN = "0A";
+    private static final long LISTENING_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long LEASE_REAP_INTERVAL_SECONDS = 30;
     
-    private final Set<Integer> assignedPorts;
+    // Ports handed out by this manager
+    private final BitSet assignedPorts;
+    // Ports some process on the host is listening on, from the last bulk scan
+    private final BitSet listeningPorts;
+    // Project that owns each assigned port, absent for ports assigned without one
+    private final Map<Integer, String> portOwners;
+    private final Map<Integer, PortLease> leases;
+    private final ScheduledExecutorService leaseReaper;
+    private final PortRegistry registry;
+    private int nextCandidate;
+    private boolean batchAllocating;
+    private long listeningScannedAt;
+    private boolean listeningScanSupported;
 
     public PortManagerService() {
-        this.assignedPorts = new HashSet<>();
+        this(null);
+    }
+
+    public PortManagerService(PortRegistry registry) {
+        this.registry = registry;
+        this.assignedPorts = new BitSet(PORT_RANGE_END + 1);
+        this.listeningPorts = new BitSet(PORT_RANGE_END + 1);
+        this.portOwners = new HashMap<>();
+        this.leases = new HashMap<>();
+        this.nextCandidate = PORT_RANGE_START;
+        this.listeningScanSupported = true;
+        
+        this.leaseReaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "port-lease-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseReaper.scheduleWithFixedDelay(this::expireLeases,
+                LEASE_REAP_INTERVAL_SECONDS, LEASE_REAP_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
@@ -33,17 +87,51 @@ public class PortManagerService {
      * @return an available port number
      */
     public int findAvailablePort(int preferredPort) {
+        return findAvailablePort(null, preferredPort);
+    }
+
+    /**
+     * Find an available port for a project starting from the specified port
+     * @param projectId the project the port is assigned to
+     * @param preferredPort the preferred starting port
+     * @return an available port number
+     */
+    public int findAvailablePort(String projectId, int preferredPort) {
+        return findAvailablePort(projectId, preferredPort, 1);
+    }
+
+    /**
+     * Find consecutive ports for a project starting from the specified port
+     * @param projectId the project the ports are assigned to
+     * @param preferredPort the preferred first port
+     * @param count how many consecutive ports the project publishes
+     * @return the first of the assigned ports
+     */
+    public synchronized int findAvailablePort(String projectId, int preferredPort, int count) {
+        refreshListeningPorts();
+
         // First try the preferred port
-        if (isPortAvailable(preferredPort) && !assignedPorts.contains(preferredPort)) {
-            assignedPorts.add(preferredPort);
+        if (isBlockFree(preferredPort, count) && isBlockAvailable(preferredPort, count)) {
+            assignBlock(preferredPort, count, projectId);
             logger.info("Assigned preferred port: {}", preferredPort);
             return preferredPort;
         }
 
-        // Search for an available port in the range
-        for (int port = PORT_RANGE_START; port <= PORT_RANGE_END; port++) {
-            if (isPortAvailable(port) && !assignedPorts.contains(port)) {
-                assignedPorts.add(port);
+        // Next-fit search from where the last allocation left off, wrapping once
+        int rangeSize = PORT_RANGE_END - PORT_RANGE_START + 1;
+        int port = nextCandidate;
+        for (int scanned = 0; scanned < rangeSize; scanned++, port++) {
+            if (port > PORT_RANGE_END) {
+                port = PORT_RANGE_START;
+            }
+            // Only the in-memory state is consulted until a candidate survives it
+            if (!isBlockFree(port, count)) {
+                continue;
+            }
+            if (isBlockAvailable(port, count)) {
+                assignBlock(port, count, projectId);
+                int next = port + count;
+                nextCandidate = next <= PORT_RANGE_END ? next : PORT_RANGE_START;
                 logger.info("Assigned port: {}", port);
                 return port;
             }
@@ -51,16 +139,44 @@ public class PortManagerService {
 
         // If no port found in range, try a random available port
         try (ServerSocket socket = new ServerSocket(0)) {
-            int port = socket.getLocalPort();
-            assignedPorts.add(port);
-            logger.info("Assigned random port: {}", port);
-            return port;
+            int randomPort = socket.getLocalPort();
+            if (count > 1 && !isBlockAvailable(randomPort, count)) {
+                throw new IOException("No " + count + " consecutive ports available");
+            }
+            assignBlock(randomPort, count, projectId);
+            logger.info("Assigned random port: {}", randomPort);
+            return randomPort;
         } catch (IOException e) {
             logger.error("Failed to find any available port", e);
             throw new RuntimeException("No available ports found", e);
         }
     }
 
+    /**
+     * Find ports for many projects at once, sharing one listening-port scan
+     * and one registry write
+     * @param preferredPorts preferred port of each project, keyed by project ID
+     * @param portCounts consecutive ports each project publishes, 1 if absent
+     * @return the assigned port of each project, keyed by project ID
+     */
+    public synchronized Map<String, Integer> findAvailablePorts(Map<String, Integer> preferredPorts,
+                                                                Map<String, Integer> portCounts) {
+        Map<String, Integer> assigned = new HashMap<>();
+        batchAllocating = true;
+        try {
+            for (Map.Entry<String, Integer> entry : preferredPorts.entrySet()) {
+                assigned.put(entry.getKey(), findAvailablePort(entry.getKey(), entry.getValue(),
+                        portCounts.getOrDefault(entry.getKey(), 1)));
+            }
+        } finally {
+            batchAllocating = false;
+            if (registry != null) {
+                registry.save();
+            }
+        }
+        return assigned;
+    }
+
     /**
      * Check if a specific port is available
      * @param port the port to check
@@ -83,8 +199,13 @@ public class PortManagerService {
      * Release a port back to the available pool
      * @param port the port to release
      */
-    public void releasePort(int port) {
-        if (assignedPorts.remove(port)) {
+    public synchronized void releasePort(int port) {
+        closeLease(leases.remove(port));
+        if (portOwners.remove(port) != null && registry != null) {
+            registry.remove(port, true);
+        }
+        if (port >= 0 && assignedPorts.get(port)) {
+            assignedPorts.clear(port);
             logger.info("Released port: {}", port);
         }
     }
@@ -95,17 +216,30 @@ public class PortManagerService {
      * @return true if the port was successfully reserved
      */
     public boolean reservePort(int port) {
-        if (!isPortAvailable(port)) {
-            logger.warn("Port {} is not available", port);
+        return reservePort(null, port);
+    }
+
+    /**
+     * Reserve a specific port for a project, succeeds if the project already holds it
+     * @param projectId the project the port is assigned to
+     * @param port the port to reserve
+     * @return true if the port was successfully reserved
+     */
+    public synchronized boolean reservePort(String projectId, int port) {
+        if (port >= 0 && assignedPorts.get(port)) {
+            if (projectId != null && projectId.equals(portOwners.get(port))) {
+                return true;
+            }
+            logger.warn("Port {} is already assigned", port);
             return false;
         }
 
-        if (assignedPorts.contains(port)) {
-            logger.warn("Port {} is already assigned", port);
+        if (!isPortAvailable(port)) {
+            logger.warn("Port {} is not available", port);
             return false;
         }
 
-        assignedPorts.add(port);
+        assign(port, projectId);
         logger.info("Reserved port: {}", port);
         return true;
     }
@@ -117,33 +251,422 @@ public class PortManagerService {
      * @return true if successful
      */
     public boolean updatePort(int oldPort, int newPort) {
+        return updatePort(null, oldPort, newPort);
+    }
+
+    /**
+     * Move a project to a new port, keeping the old one if the new one is taken
+     * @param projectId the project the port is assigned to
+     * @param oldPort the old port to release
+     * @param newPort the new port to assign
+     * @return true if successful
+     */
+    public boolean updatePort(String projectId, int oldPort, int newPort) {
+        return updatePort(projectId, oldPort, newPort, 1);
+    }
+
+    /**
+     * Move a project's consecutive ports to start at a new port, keeping the old ones if any new one is taken
+     * @param projectId the project the ports are assigned to
+     * @param oldPort the first old port
+     * @param newPort the first new port
+     * @param count how many consecutive ports the project publishes
+     * @return true if successful
+     */
+    public synchronized boolean updatePort(String projectId, int oldPort, int newPort, int count) {
         if (oldPort == newPort) {
             return true;
         }
 
-        if (!isPortAvailable(newPort)) {
-            logger.warn("New port {} is not available", newPort);
-            return false;
+        List<Integer> reserved = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int port = newPort + i;
+            boolean held = port >= oldPort && port < oldPort + count;
+            if (!held && !reservePort(projectId, port)) {
+                logger.warn("New port {} is not available", port);
+                reserved.forEach(this::releasePort);
+                return false;
+            }
+            if (!held) {
+                reserved.add(port);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int port = oldPort + i;
+            if (port < newPort || port >= newPort + count) {
+                releasePort(port);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bind a project's port and hold it until the container is about to
+     * publish it, so nothing else can grab it during a long build
+     * @param projectId the project starting
+     * @param port the project's port
+     * @param ttlMillis how long the port may be held before the lease expires
+     * @return the lease, hand it off right before starting the container
+     * @throws IOException if the port belongs to another project or is in use
+     */
+    public synchronized PortLease acquireLease(String projectId, int port, long ttlMillis) throws IOException {
+        String owner = portOwners.get(port);
+        if (owner != null && !owner.equals(projectId)) {
+            throw new IOException("Port " + port + " is assigned to another project");
+        }
+        if (leases.containsKey(port)) {
+            throw new IOException("Port " + port + " is already held by a starting project");
+        }
+
+        ServerSocket socket = new ServerSocket();
+        try {
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            socket.close();
+            throw new IOException("Port " + port + " is already in use by another process", e);
         }
 
-        releasePort(oldPort);
-        return reservePort(newPort);
+        assign(port, projectId);
+        PortLease lease = new PortLease(projectId, port, socket, System.currentTimeMillis() + ttlMillis);
+        leases.put(port, lease);
+        logger.debug("Leased port {} to project {}", port, projectId);
+        return lease;
     }
 
     /**
      * Get all currently assigned ports
      * @return set of assigned ports
      */
-    public Set<Integer> getAssignedPorts() {
-        return new HashSet<>(assignedPorts);
+    public synchronized Set<Integer> getAssignedPorts() {
+        Set<Integer> ports = new HashSet<>();
+        assignedPorts.stream().forEach(ports::add);
+        return ports;
     }
 
     /**
      * Clear all port assignments
      */
-    public void clearAllPorts() {
+    public synchronized void clearAllPorts() {
+        for (PortLease lease : leases.values()) {
+            closeLease(lease);
+        }
+        leases.clear();
+        portOwners.clear();
         assignedPorts.clear();
+        if (registry != null) {
+            registry.clear();
+        }
+        nextCandidate = PORT_RANGE_START;
         logger.info("Cleared all port assignments");
     }
-}
 
+    /**
+     * Release every held socket and stop the lease reaper
+     */
+    public synchronized void close() {
+        leaseReaper.shutdownNow();
+        for (PortLease lease : leases.values()) {
+            closeLease(lease);
+        }
+        leases.clear();
+    }
+
+    /**
+     * Record the container that published a project's port
+     * @param projectId the owning project
+     * @param port the published port
+     * @param containerId the container
+     */
+    public synchronized void recordContainer(String projectId, int port, String containerId) {
+        if (registry != null) {
+            registry.put(port, projectId, containerId, true);
+        }
+    }
+
+    /**
+     * Assign every project its configured port in one pass at startup,
+     * trusting the daemon's view of published ports instead of bind-probing
+     * @param projects the loaded projects
+     * @param running running project containers keyed by project ID
+     * @return a description of every port conflict found
+     */
+    public synchronized List<String> reconcile(List<Project> projects,
+                                               Map<String, DockerService.ProjectContainer> running) {
+        refreshListeningPorts();
+
+        Map<Integer, String> publishedBy = new HashMap<>();
+        Set<String> runningContainers = new HashSet<>();
+        for (DockerService.ProjectContainer container : running.values()) {
+            runningContainers.add(container.getContainerId());
+            for (int port : container.getPublicPorts()) {
+                publishedBy.put(port, container.getProjectId());
+            }
+        }
+        Map<String, String> names = new HashMap<>();
+        for (Project project : projects) {
+            names.put(project.getId(), project.getName());
+        }
+
+        if (registry != null) {
+            // A recorded container that is gone no longer holds its port
+            for (PortRegistry.Entry entry : registry.getEntries()) {
+                if (entry.getContainerId() != null && !runningContainers.contains(entry.getContainerId())) {
+                    logger.info("Port {} released, container {} last seen {} no longer runs", entry.getPort(),
+                            entry.getContainerId(), Instant.ofEpochMilli(entry.getLastSeen()));
+                    registry.clearContainer(entry.getPort(), false);
+                }
+            }
+        }
+
+        List<String> conflicts = new ArrayList<>();
+        for (Project project : projects) {
+            if (project.getPort() <= 0) {
+                continue;
+            }
+            // A full-stack project also publishes its frontend on the next port
+            for (int offset = 0; offset < project.getPortCount(); offset++) {
+                reconcilePort(project, project.getPort() + offset, running, publishedBy, names, conflicts);
+            }
+        }
+
+        if (registry != null) {
+            // Drop entries of deleted projects and ports that moved
+            for (PortRegistry.Entry entry : registry.getEntries()) {
+                if (!entry.getProjectId().equals(portOwners.get(entry.getPort()))) {
+                    registry.remove(entry.getPort(), false);
+                }
+            }
+            registry.save();
+        }
+
+        for (String conflict : conflicts) {
+            logger.warn("Port conflict: {}", conflict);
+        }
+        logger.info("Reconciled {} project ports with {} running containers", projects.size(), running.size());
+        return conflicts;
+    }
+
+    private void reconcilePort(Project project, int port, Map<String, DockerService.ProjectContainer> running,
+                               Map<Integer, String> publishedBy, Map<String, String> names,
+                               List<String> conflicts) {
+        String owner = portOwners.get(port);
+        if (owner != null && !owner.equals(project.getId())) {
+            conflicts.add(project.getName() + ": port " + port + " is also configured for "
+                    + names.getOrDefault(owner, "another project"));
+            return;
+        }
+
+        String publisher = publishedBy.get(port);
+        PortRegistry.Entry recorded = registry != null ? registry.get(port) : null;
+        if (publisher != null && !publisher.equals(project.getId())) {
+            conflicts.add(project.getName() + ": port " + port + " is published by the container of "
+                    + names.getOrDefault(publisher, "a deleted project"));
+        } else if (recorded != null && recorded.getContainerId() != null
+                && !recorded.getProjectId().equals(project.getId())) {
+            // The daemon doesn't list it as published, but the container that last did still runs
+            conflicts.add(project.getName() + ": port " + port + " was last published by the running container of "
+                    + names.getOrDefault(recorded.getProjectId(), "a deleted project"));
+        } else if (publisher == null && listeningPorts.get(port)) {
+            conflicts.add(project.getName() + ": port " + port + " is in use by another process");
+        }
+
+        // The project keeps its port either way, starting it reports the conflict again
+        assignedPorts.set(port);
+        portOwners.put(port, project.getId());
+        if (registry != null) {
+            DockerService.ProjectContainer own = running.get(project.getId());
+            boolean published = own != null && own.getPublicPorts().contains(port);
+            registry.put(port, project.getId(), published ? own.getContainerId() : null, false);
+        }
+    }
+
+    private void assign(int port, String projectId) {
+        assignedPorts.set(port);
+        if (projectId != null && !projectId.equals(portOwners.put(port, projectId))) {
+            if (registry != null) {
+                // A batch writes the registry once when it is done
+                registry.put(port, projectId, null, !batchAllocating);
+            }
+        }
+    }
+
+    private synchronized void endLease(PortLease lease) {
+        leases.remove(lease.port, lease);
+        closeLease(lease);
+    }
+
+    private synchronized void expireLeases() {
+        long now = System.currentTimeMillis();
+        List<PortLease> expired = new ArrayList<>();
+        for (PortLease lease : leases.values()) {
+            if (lease.expiresAt <= now) {
+                expired.add(lease);
+            }
+        }
+        for (PortLease lease : expired) {
+            // The starter never handed off, don't hold the port forever
+            logger.warn("Lease on port {} for project {} expired", lease.port, lease.projectId);
+            endLease(lease);
+        }
+    }
+
+    private void closeLease(PortLease lease) {
+        if (lease == null) {
+            return;
+        }
+        try {
+            lease.socket.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close held socket on port {}: {}", lease.port, e.getMessage());
+        }
+    }
+
+    private void assignBlock(int port, int count, String projectId) {
+        for (int i = 0; i < count; i++) {
+            assign(port + i, projectId);
+        }
+    }
+
+    private boolean isBlockFree(int port, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!isPortFree(port + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlockAvailable(int port, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!isPortAvailable(port + i)) {
+                // Taken by something the scan missed, remember it until the next scan
+                listeningPorts.set(port + i);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPortFree(int port) {
+        return port >= 1 && port <= 65535 && !assignedPorts.get(port) && !listeningPorts.get(port);
+    }
+
+    /**
+     * Rebuild the set of listening ports from the kernel's socket tables in
+     * one pass, rate limited so bursts of allocations share a scan
+     */
+    private void refreshListeningPorts() {
+        if (!listeningScanSupported) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (listeningScannedAt != 0 && now - listeningScannedAt < LISTENING_REFRESH_NANOS) {
+            return;
+        }
+
+        BitSet scanned = new BitSet(PORT_RANGE_END + 1);
+        boolean anyTable = false;
+        for (String table : PROC_TCP_TABLES) {
+            Path path = Paths.get(table);
+            if (!Files.isReadable(path)) {
+                continue;
+            }
+            anyTable = true;
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                // First line is the column header
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int port = parseListeningPort(line);
+                    if (port > 0) {
+                        scanned.set(port);
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to read {}: {}", table, e.getMessage());
+            }
+        }
+
+        if (!anyTable) {
+            // Not Linux, every candidate falls back to a bind probe
+            listeningScanSupported = false;
+            logger.debug("Socket tables not available, using bind probes only");
+            return;
+        }
+
+        listeningPorts.clear();
+        listeningPorts.or(scanned);
+        listeningScannedAt = now;
+    }
+
+    /**
+     * Parse the local port of a /proc/net/tcp row if the socket is listening
+     * @param line a row such as "0: 00000000:1F90 00000000:0000 0A ..."
+     * @return the port, or -1 if the row is not a listening socket
+     */
+    private int parseListeningPort(String line) {
+        String[] columns = line.trim().split("\\s+");
+        if (columns.length < 4 || !TCP_STATE_LISTEN.equals(columns[3])) {
+            return -1;
+        }
+
+        String localAddress = columns[1];
+        int colon = localAddress.lastIndexOf(':');
+        if (colon < 0) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(localAddress.substring(colon + 1), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A port bound on behalf of a starting project. The port stays assigned
+     * to the project after the lease ends; only the held socket is released.
+     */
+    public class PortLease implements AutoCloseable {
+        private final String projectId;
+        private final int port;
+        private final ServerSocket socket;
+        private final long expiresAt;
+
+        PortLease(String projectId, int port, ServerSocket socket, long expiresAt) {
+            this.projectId = projectId;
+            this.port = port;
+            this.socket = socket;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Let go of the socket so the container can bind the port, call right before starting it
+         */
+        public void handOff() {
+            endLease(this);
+        }
+
+        public boolean isHeld() {
+            return !socket.isClosed();
+        }
+
+        public String getProjectId() {
+            return projectId;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * Release the socket if it was never handed off
+         */
+        @Override
+        public void close() {
+            endLease(this);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.dockermanager.service;
+
+import com.dockermanager.util.FileUtils;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Persisted record of which project owns which host port, the container
+ * last seen publishing it and when. Kept next to projects.json so port
+ * ownership survives restarts.
+ */
+public class PortRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(PortRegistry.class);
+
+    private final Path registryFile;
+    private final Gson gson;
+    private final Map<Integer, Entry> entries = new TreeMap<>();
+
+    public PortRegistry(Path registryFile) {
+        this.registryFile = registryFile;
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        load();
+    }
+
+    private void load() {
+        if (!Files.exists(registryFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(registryFile)) {
+            Type listType = new TypeToken<ArrayList<Entry>>(){}.getType();
+            List<Entry> loaded = gson.fromJson(reader, listType);
+            if (loaded != null) {
+                for (Entry entry : loaded) {
+                    if (entry != null && entry.projectId != null) {
+                        entries.put(entry.port, entry);
+                    }
+                }
+            }
+            logger.info("Loaded {} port registry entries", entries.size());
+        } catch (Exception e) {
+            logger.error("Failed to load port registry: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the registry entry of a port
+     * @param port the port
+     * @return the entry, or null if the port is not registered
+     */
+    public synchronized Entry get(int port) {
+        return entries.get(port);
+    }
+
+    public synchronized Collection<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Record a project's port, keeping the known container if the owner is unchanged
+     * @param port the port
+     * @param projectId the owning project
+     * @param containerId the container publishing it, or null if not known
+     * @param save whether to write the registry now
+     */
+    public synchronized void put(int port, String projectId, String containerId, boolean save) {
+        Entry entry = entries.get(port);
+        if (entry == null || !projectId.equals(entry.projectId)) {
+            entry = new Entry(port, projectId);
+            entries.put(port, entry);
+        }
+        if (containerId != null) {
+            entry.containerId = containerId;
+        }
+        entry.lastSeen = System.currentTimeMillis();
+
+        if (save) {
+            save();
+        }
+    }
+
+    /**
+     * Forget the container of a port, the project keeps owning it
+     * @param port the port
+     * @param save whether to write the registry now
+     */
+    public synchronized void clearContainer(int port, boolean save) {
+        Entry entry = entries.get(port);
+        if (entry != null && entry.containerId != null) {
+            entry.containerId = null;
+            if (save) {
+                save();
+            }
+        }
+    }
+
+    /**
+     * Forget a port
+     * @param port the port
+     * @param save whether to write the registry now
+     */
+    public synchronized void remove(int port, boolean save) {
+        if (entries.remove(port) != null && save) {
+            save();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        save();
+    }
+
+    /**
+     * Write the registry to disk
+     */
+    public synchronized void save() {
+        try {
+            FileUtils.writeFileAtomically(registryFile, gson.toJson(new ArrayList<>(entries.values())));
+        } catch (IOException e) {
+            logger.error("Failed to save port registry", e);
+        }
+    }
+
+    /**
+     * One registered port
+     */
+    public static class Entry {
+        private int port;
+        private String projectId;
+        private String containerId;
+        private long lastSeen;
+
+        Entry(int port, String projectId) {
+            this.port = port;
+            this.projectId = projectId;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public String getProjectId() {
+            return projectId;
+        }
+
+        public String getContainerId() {
+            return containerId;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+    }
+}
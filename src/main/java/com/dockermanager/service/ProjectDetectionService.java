@@ -2,43 +2,51 @@ package com.dockermanager.service;
 
 import com.dockermanager.model.ProjectType;
 import com.dockermanager.util.FileUtils;
+import com.dockermanager.util.ProjectDescriptor;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-
 public class ProjectDetectionService {
     private static final Logger logger = LoggerFactory.getLogger(ProjectDetectionService.class);
 
     public ProjectType detectProjectType(String projectPath) {
+        long start = System.nanoTime();
+        ProjectType type = detect(projectPath);
+        MetricsRegistry.getInstance().timer("dockermanager_detect_seconds",
+                "Time to detect the type of a project directory", "type", type.name()).recordSince(start);
+        return type;
+    }
+
+    private ProjectType detect(String projectPath) {
         if (!FileUtils.isValidDirectory(projectPath)) {
             logger.warn("Invalid project path: {}", projectPath);
             return ProjectType.UNKNOWN;
         }
 
         try {
+            ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+
             // Priority 1: Check for full-stack structure
-            if (isFullStackProject(projectPath)) {
+            if (isFullStackProject(descriptor)) {
                 logger.info("Detected full-stack project at: {}", projectPath);
                 return ProjectType.FULLSTACK;
             }
 
             // Priority 2: Check for React project
-            if (isReactProject(projectPath)) {
+            if (isReactProject(descriptor)) {
                 logger.info("Detected React project at: {}", projectPath);
                 return ProjectType.REACT;
             }
 
             // Priority 3: Check for Node.js project
-            if (isNodeProject(projectPath)) {
+            if (isNodeProject(descriptor)) {
                 logger.info("Detected Node.js project at: {}", projectPath);
                 return ProjectType.NODE;
             }
 
             // Priority 4: Check for static HTML/CSS/JS
-            if (isStaticHtmlProject(projectPath)) {
+            if (isStaticHtmlProject(descriptor)) {
                 logger.info("Detected HTML/CSS/JS project at: {}", projectPath);
                 return ProjectType.HTML;
             }
@@ -52,176 +60,98 @@ public class ProjectDetectionService {
         }
     }
 
-    private boolean isFullStackProject(String projectPath) {
+    private boolean isFullStackProject(ProjectDescriptor descriptor) {
         // Check for separate backend and frontend directories
-        boolean hasBackend = FileUtils.directoryExists(projectPath, "backend") ||
-                            FileUtils.directoryExists(projectPath, "server");
-        boolean hasFrontend = FileUtils.directoryExists(projectPath, "frontend") ||
-                             FileUtils.directoryExists(projectPath, "client");
+        boolean hasBackend = descriptor.hasDirectory("backend") || descriptor.hasDirectory("server");
+        boolean hasFrontend = descriptor.hasDirectory("frontend") || descriptor.hasDirectory("client");
 
         if (hasBackend && hasFrontend) {
             return true;
         }
 
         // Check for monorepo with both server and client code
-        boolean hasPackageJson = FileUtils.fileExists(projectPath, "package.json");
-        if (hasPackageJson) {
-            try {
-                String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-                JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-
-                // Check for workspaces (monorepo pattern)
-                if (packageJson.has("workspaces")) {
-                    return true;
-                }
+        JsonObject packageJson = descriptor.getPackageJson();
+        if (packageJson != null) {
+            // Check for workspaces (monorepo pattern)
+            if (packageJson.has("workspaces")) {
+                return true;
+            }
 
-                // Check if scripts suggest both backend and frontend
-                if (packageJson.has("scripts")) {
-                    JsonObject scripts = packageJson.getAsJsonObject("scripts");
-                    boolean hasServerScript = scripts.has("server") || scripts.has("start:server") || 
-                                             scripts.has("backend") || scripts.has("start:backend");
-                    boolean hasClientScript = scripts.has("client") || scripts.has("start:client") || 
-                                             scripts.has("frontend") || scripts.has("start:frontend");
-                    if (hasServerScript && hasClientScript) {
-                        return true;
-                    }
-                }
-            } catch (Exception e) {
-                logger.debug("Error reading package.json for full-stack detection: {}", e.getMessage());
+            // Check if scripts suggest both backend and frontend
+            boolean hasServerScript = descriptor.hasScript("server") || descriptor.hasScript("start:server") ||
+                                     descriptor.hasScript("backend") || descriptor.hasScript("start:backend");
+            boolean hasClientScript = descriptor.hasScript("client") || descriptor.hasScript("start:client") ||
+                                     descriptor.hasScript("frontend") || descriptor.hasScript("start:frontend");
+            if (hasServerScript && hasClientScript) {
+                return true;
             }
         }
 
         return false;
     }
 
-    private boolean isReactProject(String projectPath) {
-        if (!FileUtils.fileExists(projectPath, "package.json")) {
+    private boolean isReactProject(ProjectDescriptor descriptor) {
+        // An unreadable package.json tells us nothing about the project
+        if (descriptor.getPackageJson() == null) {
             return false;
         }
 
-        try {
-            // Check for React component files
-            if (FileUtils.directoryExists(projectPath, "src")) {
-                String srcPath = new File(projectPath, "src").getPath();
-                if (FileUtils.fileExists(srcPath, "App.jsx") || 
-                    FileUtils.fileExists(srcPath, "App.tsx") ||
-                    FileUtils.fileExists(srcPath, "App.js")) {
-                    
-                    // Read package.json to confirm React dependency
-                    String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-                    JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-                    
-                    if (hasReactDependency(packageJson)) {
-                        return true;
-                    }
-                }
-            }
-
-            // Check package.json for React dependencies
-            String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-            JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-
-            if (hasReactDependency(packageJson)) {
-                return true;
-            }
-
-            // Check for React-specific config files
-            if (FileUtils.fileExists(projectPath, "vite.config.js") ||
-                FileUtils.fileExists(projectPath, "vite.config.ts") ||
-                FileUtils.fileExists(projectPath, ".next") ||
-                FileUtils.fileExists(projectPath, "next.config.js")) {
-                return true;
-            }
-
-        } catch (Exception e) {
-            logger.debug("Error checking for React project: {}", e.getMessage());
+        // Check package.json for React dependencies
+        if (hasReactDependency(descriptor)) {
+            return true;
         }
 
-        return false;
+        // Check for React-specific config files
+        return descriptor.hasFile("vite.config.js") ||
+               descriptor.hasFile("vite.config.ts") ||
+               descriptor.hasFile(".next") ||
+               descriptor.hasFile("next.config.js");
     }
 
-    private boolean hasReactDependency(JsonObject packageJson) {
-        if (packageJson.has("dependencies")) {
-            JsonObject deps = packageJson.getAsJsonObject("dependencies");
-            if (deps.has("react") || deps.has("react-dom")) {
-                return true;
-            }
-        }
-        if (packageJson.has("devDependencies")) {
-            JsonObject devDeps = packageJson.getAsJsonObject("devDependencies");
-            if (devDeps.has("react") || devDeps.has("react-dom")) {
-                return true;
-            }
-        }
-        return false;
+    private boolean hasReactDependency(ProjectDescriptor descriptor) {
+        return descriptor.hasDependency("react") || descriptor.hasDependency("react-dom");
     }
 
-    private boolean isNodeProject(String projectPath) {
-        if (!FileUtils.fileExists(projectPath, "package.json")) {
+    private boolean isNodeProject(ProjectDescriptor descriptor) {
+        JsonObject packageJson = descriptor.getPackageJson();
+        if (packageJson == null) {
             return false;
         }
 
-        try {
-            String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-            JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-
-            // Check for common Node.js patterns
-            if (packageJson.has("scripts")) {
-                JsonObject scripts = packageJson.getAsJsonObject("scripts");
-                // Look for server-related scripts
-                if (scripts.has("start") || scripts.has("dev") || 
-                    scripts.has("serve") || scripts.has("server")) {
-                    return true;
-                }
-            }
-
-            // Check for type: module or main field
-            if (packageJson.has("type") || packageJson.has("main")) {
-                return true;
-            }
-
-            // Check for common Node.js dependencies
-            if (packageJson.has("dependencies")) {
-                JsonObject deps = packageJson.getAsJsonObject("dependencies");
-                if (deps.has("express") || deps.has("fastify") || 
-                    deps.has("koa") || deps.has("nestjs")) {
-                    return true;
-                }
-            }
+        // Look for server-related scripts
+        if (descriptor.hasScript("start") || descriptor.hasScript("dev") ||
+            descriptor.hasScript("serve") || descriptor.hasScript("server")) {
+            return true;
+        }
 
-            // Check for common Node.js files
-            if (FileUtils.fileExists(projectPath, "server.js") ||
-                FileUtils.fileExists(projectPath, "app.js") ||
-                FileUtils.fileExists(projectPath, "index.js")) {
-                return true;
-            }
+        // Check for type: module or main field
+        if (packageJson.has("type") || packageJson.has("main")) {
+            return true;
+        }
 
-        } catch (Exception e) {
-            logger.debug("Error checking for Node.js project: {}", e.getMessage());
+        // Check for common Node.js dependencies
+        JsonObject deps = descriptor.getSection("dependencies");
+        if (deps != null && (deps.has("express") || deps.has("fastify") ||
+                deps.has("koa") || deps.has("nestjs"))) {
+            return true;
         }
 
-        return false;
+        // Check for common Node.js files
+        return descriptor.hasFile("server.js") ||
+               descriptor.hasFile("app.js") ||
+               descriptor.hasFile("index.js");
     }
 
-    private boolean isStaticHtmlProject(String projectPath) {
+    private boolean isStaticHtmlProject(ProjectDescriptor descriptor) {
         // Check for index.html without package.json
-        boolean hasIndexHtml = FileUtils.fileExists(projectPath, "index.html");
-        boolean hasPackageJson = FileUtils.fileExists(projectPath, "package.json");
+        boolean hasIndexHtml = descriptor.hasFile("index.html");
 
-        if (hasIndexHtml && !hasPackageJson) {
+        if (hasIndexHtml && !descriptor.hasPackageJson()) {
             return true;
         }
 
         // Check for multiple HTML files suggesting a static site
-        if (hasIndexHtml) {
-            File dir = new File(projectPath);
-            File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".html"));
-            if (files != null && files.length > 0) {
-                return true;
-            }
-        }
-
-        return false;
+        return hasIndexHtml && descriptor.hasFileWithSuffix(".html");
     }
 
     public int detectDefaultPort(String projectPath, ProjectType type) {
@@ -229,17 +159,15 @@ public class ProjectDetectionService {
             return 80;
         }
 
-        if (!FileUtils.fileExists(projectPath, "package.json")) {
+        ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+        if (!descriptor.hasPackageJson()) {
             return 3000; // default
         }
 
         try {
-            String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-            JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-
             // Check for port in scripts
-            if (packageJson.has("scripts")) {
-                JsonObject scripts = packageJson.getAsJsonObject("scripts");
+            JsonObject scripts = descriptor.getScripts();
+            if (scripts != null) {
                 for (String key : scripts.keySet()) {
                     String script = scripts.get(key).getAsString();
                     // Look for PORT=xxxx or --port xxxx
@@ -267,11 +195,9 @@ public class ProjectDetectionService {
             }
 
             // Check for config field
-            if (packageJson.has("config")) {
-                JsonObject config = packageJson.getAsJsonObject("config");
-                if (config.has("port")) {
-                    return config.get("port").getAsInt();
-                }
+            JsonObject config = descriptor.getSection("config");
+            if (config != null && config.has("port")) {
+                return config.get("port").getAsInt();
             }
 
         } catch (Exception e) {
@@ -287,4 +213,3 @@ public class ProjectDetectionService {
         };
     }
 }
-
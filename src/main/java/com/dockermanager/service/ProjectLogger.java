@@ -11,25 +11,51 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ProjectLogger {
     private static final Logger logger = LoggerFactory.getLogger(ProjectLogger.class);
     private static final String LOGS_BASE_DIR = System.getProperty("user.home") + File.separator + ".docker-project-manager" + File.separator + "project-logs";
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_WRITES = 20_000;
+    private static final long MAX_BACKPRESSURE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private static final String LATEST_INDEX_FILE = "latest";
+    private static final Set<String> ACTIVE_LOG_FILES = ConcurrentHashMap.newKeySet();
+    
+    private static volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(-1, "");
     
     private final Project project;
     private final String projectLogDir;
     private final String currentLogFile;
+    private final LogRingBuffer liveBuffer;
+    private final AsyncLogWriter writer = AsyncLogWriter.getInstance();
     private BufferedWriter logWriter;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    // Writers queue lines under the read lock, close() takes the write lock so no line lands after the file closes
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
 
     public ProjectLogger(Project project) {
         this.project = project;
         this.projectLogDir = LOGS_BASE_DIR + File.separator + sanitizeName(project.getName());
         this.currentLogFile = projectLogDir + File.separator + "run_" + LocalDateTime.now().format(FILE_FORMAT) + ".log";
+        this.liveBuffer = LogRingBuffer.forProject(project.getId());
         
+        liveBuffer.append("=".repeat(20) + " Run started " + currentTimestamp() + " " + "=".repeat(20));
         initializeLogFile();
     }
 
@@ -47,41 +73,50 @@ public class ProjectLogger {
             logFile.createNewFile();
             
             // Initialize writer
-            logWriter = new BufferedWriter(new FileWriter(logFile, true));
+            logWriter = new BufferedWriter(new FileWriter(logFile, true), WRITE_BUFFER_SIZE);
             
             // Write header
             writeHeader();
             
+            ACTIVE_LOG_FILES.add(logFile.getAbsolutePath());
+            writeLatestIndex(logDirPath, logFile.getName());
+            
+            // Compress and prune earlier runs in the background
+            Project.LogOptions logOptions = project.getLogOptions() != null ? 
+                    project.getLogOptions() : new Project.LogOptions();
+            LogRetentionService.getInstance().schedule(projectLogDir, logOptions, ACTIVE_LOG_FILES);
+            
         } catch (IOException e) {
             logger.error("Failed to initialize project log file: {}", e.getMessage(), e);
         }
     }
 
-    private void writeHeader() {
+    private void writeLatestIndex(Path logDirPath, String logFileName) {
         try {
-            logWriter.write("=".repeat(80));
-            logWriter.newLine();
-            logWriter.write("Docker Project Manager - Project Log");
-            logWriter.newLine();
-            logWriter.write("Project: " + project.getName());
-            logWriter.newLine();
-            logWriter.write("Type: " + project.getType().getDisplayName());
-            logWriter.newLine();
-            logWriter.write("Path: " + project.getPath());
-            logWriter.newLine();
-            logWriter.write("Port: " + project.getPort());
-            logWriter.newLine();
-            logWriter.write("Started: " + LocalDateTime.now().format(TIMESTAMP_FORMAT));
-            logWriter.newLine();
-            logWriter.write("=".repeat(80));
-            logWriter.newLine();
-            logWriter.newLine();
-            logWriter.flush();
+            Path index = logDirPath.resolve(LATEST_INDEX_FILE);
+            Path temp = logDirPath.resolve(LATEST_INDEX_FILE + ".tmp");
+            Files.writeString(temp, logFileName);
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
-            logger.error("Failed to write log header: {}", e.getMessage());
+            logger.debug("Failed to update latest log index: {}", e.getMessage());
         }
     }
 
+    private void writeHeader() {
+        String separator = "=".repeat(80);
+        StringBuilder header = new StringBuilder();
+        header.append(separator).append(LINE_SEPARATOR);
+        header.append("Docker Project Manager - Project Log").append(LINE_SEPARATOR);
+        header.append("Project: ").append(project.getName()).append(LINE_SEPARATOR);
+        header.append("Type: ").append(project.getType().getDisplayName()).append(LINE_SEPARATOR);
+        header.append("Path: ").append(project.getPath()).append(LINE_SEPARATOR);
+        header.append("Port: ").append(project.getPort()).append(LINE_SEPARATOR);
+        header.append("Started: ").append(currentTimestamp()).append(LINE_SEPARATOR);
+        header.append(separator).append(LINE_SEPARATOR);
+        header.append(LINE_SEPARATOR);
+        writer.write(logWriter, header.toString());
+    }
+
     public void logInfo(String message) {
         writeLog("INFO", message);
     }
@@ -98,39 +133,87 @@ public class ProjectLogger {
         writeLog("CONTAINER", message);
     }
 
+    public void logContainerError(String message) {
+        writeLog("CONTAINER-ERR", message);
+    }
+
+    /**
+     * Wait briefly while the background writer is far behind, for producers
+     * such as followed container output that can slow down their source
+     */
+    public void awaitWriteCapacity() {
+        long deadline = System.nanoTime() + MAX_BACKPRESSURE_WAIT_NANOS;
+        while (writer.getPendingCount() > MAX_PENDING_WRITES && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
     private void writeLog(String level, String message) {
+        String logLine = "[" + currentTimestamp() + "] [" + level + "] " + message;
+        
+        // Feed the in-app console, never blocks the producer
+        liveBuffer.append(logLine);
+        
         if (logWriter == null) {
             return;
         }
 
+        closeLock.readLock().lock();
         try {
-            String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-            String logLine = String.format("[%s] [%s] %s", timestamp, level, message);
-            logWriter.write(logLine);
-            logWriter.newLine();
-            logWriter.flush(); // Flush immediately so logs are visible in real-time
-        } catch (IOException e) {
-            logger.error("Failed to write to project log: {}", e.getMessage());
+            if (!closed.get()) {
+                // Written and flushed in batches by the background writer
+                writer.write(logWriter, logLine + LINE_SEPARATOR);
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Block until every message logged so far is on disk
+     */
+    public void flush() {
+        if (logWriter != null && !closed.get()) {
+            writer.flush(logWriter);
         }
     }
 
     public void close() {
-        if (logWriter != null) {
-            try {
-                logWriter.write("\n");
-                logWriter.write("=".repeat(80));
-                logWriter.newLine();
-                logWriter.write("Log ended: " + LocalDateTime.now().format(TIMESTAMP_FORMAT));
-                logWriter.newLine();
-                logWriter.write("=".repeat(80));
-                logWriter.newLine();
-                logWriter.flush();
-                logWriter.close();
-                logger.info("Closed project log file: {}", currentLogFile);
-            } catch (IOException e) {
-                logger.error("Failed to close project log: {}", e.getMessage());
+        if (logWriter == null) {
+            return;
+        }
+        closeLock.writeLock().lock();
+        try {
+            if (!closed.compareAndSet(false, true)) {
+                return;
             }
+            String separator = "=".repeat(80);
+            writer.write(logWriter, "\n" + separator + LINE_SEPARATOR
+                    + "Log ended: " + currentTimestamp() + LINE_SEPARATOR
+                    + separator + LINE_SEPARATOR);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        // Outside the lock, the close waits for the writer thread to drain this file
+        writer.close(logWriter);
+        ACTIVE_LOG_FILES.remove(new File(currentLogFile).getAbsolutePath());
+        logger.info("Closed project log file: {}", currentLogFile);
+    }
+
+    /**
+     * Format the current time, reformatting at most once per second
+     */
+    private static String currentTimestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.second != second) {
+            String formatted = LocalDateTime.ofEpochSecond(second, 0, 
+                    ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(second)))
+                    .format(TIMESTAMP_FORMAT);
+            cached = new CachedTimestamp(second, formatted);
+            cachedTimestamp = cached;
         }
+        return cached.formatted;
     }
 
     public String getLogFilePath() {
@@ -145,6 +228,13 @@ public class ProjectLogger {
         return name.replaceAll("[^a-zA-Z0-9-_]", "_");
     }
 
+    /**
+     * Check if a file name is a run log, plain or compressed
+     */
+    static boolean isRunLogFile(String name) {
+        return name.startsWith("run_") && (name.endsWith(".log") || name.endsWith(".log.gz"));
+    }
+
     /**
      * Get the latest log file for a project
      */
@@ -156,20 +246,45 @@ public class ProjectLogger {
             return null;
         }
         
-        File[] logFiles = dir.listFiles((d, name) -> name.endsWith(".log"));
+        // Fast path: the index written when the run started
+        try {
+            Path index = dir.toPath().resolve(LATEST_INDEX_FILE);
+            if (Files.exists(index)) {
+                String name = Files.readString(index).trim();
+                for (String candidate : new String[] {name, name + ".gz"}) {
+                    File latest = new File(dir, candidate);
+                    if (!name.isEmpty() && latest.isFile()) {
+                        return latest.getAbsolutePath();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to read latest log index: {}", e.getMessage());
+        }
+        
+        // Fall back to scanning, run names sort by start time
+        File[] logFiles = dir.listFiles((d, name) -> isRunLogFile(name));
         if (logFiles == null || logFiles.length == 0) {
             return null;
         }
         
-        // Sort by last modified, get the most recent
         File latest = logFiles[0];
         for (File f : logFiles) {
-            if (f.lastModified() > latest.lastModified()) {
+            if (f.getName().compareTo(latest.getName()) > 0) {
                 latest = f;
             }
         }
         
         return latest.getAbsolutePath();
     }
-}
 
+    private static class CachedTimestamp {
+        private final long second;
+        private final String formatted;
+
+        CachedTimestamp(long second, String formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+    }
+}
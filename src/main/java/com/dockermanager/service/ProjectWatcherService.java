@@ -0,0 +1,202 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import com.dockermanager.model.ProjectType;
+import com.dockermanager.util.ProjectDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the root of registered project directories. Changes to files that
+ * drive detection re-run it after a quiet period and report type changes to
+ * the listener.
+ */
+public class ProjectWatcherService {
+    private static final Logger logger = LoggerFactory.getLogger(ProjectWatcherService.class);
+    private static final long DEBOUNCE_MILLIS = 750;
+    private static final Set<String> MARKER_FILES = Set.of(
+            "package.json", "index.html", "backend", "server", "api", "frontend", "client", "web",
+            "vite.config.js", "vite.config.ts", ".next");
+
+    private final ProjectDetectionService detectionService;
+    private final Listener listener;
+    private final Map<String, WatchedProject> watched = new ConcurrentHashMap<>();
+    private final Map<WatchKey, WatchedProject> keys = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService debouncer;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public ProjectWatcherService(ProjectDetectionService detectionService, Listener listener) {
+        this.detectionService = detectionService;
+        this.listener = listener;
+        this.debouncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "project-watcher-debounce");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            watchThread = new Thread(this::runLoop, "project-watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException e) {
+            logger.warn("File watching not available, project changes won't be picked up: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start watching a project's directory, registration happens in the background
+     * @param project the project to watch
+     */
+    public void watch(Project project) {
+        if (watchService == null || watched.containsKey(project.getId())) {
+            return;
+        }
+
+        WatchedProject entry = new WatchedProject(project);
+        watched.put(project.getId(), entry);
+        try {
+            // Detection markers all live at the root, subdirectories aren't watched
+            WatchKey key = entry.root.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            keys.put(key, entry);
+        } catch (IOException | ClosedWatchServiceException e) {
+            logger.warn("Failed to watch {}: {}", entry.root, e.getMessage());
+        }
+    }
+
+    /**
+     * Stop watching a project's directory
+     * @param projectId the project ID
+     */
+    public void unwatch(String projectId) {
+        WatchedProject entry = watched.remove(projectId);
+        if (entry == null) {
+            return;
+        }
+        keys.entrySet().removeIf(key -> {
+            if (key.getValue() == entry) {
+                key.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void close() {
+        debouncer.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Error closing watch service: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            WatchedProject entry = keys.get(key);
+            if (entry != null) {
+                handleEvents(entry, key);
+            }
+            if (!key.reset()) {
+                // The directory is gone
+                keys.remove(key);
+            }
+        }
+    }
+
+    private void handleEvents(WatchedProject entry, WatchKey key) {
+        boolean markerChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || isMarker(((Path) event.context()).toString())) {
+                markerChanged = true;
+            }
+        }
+
+        if (markerChanged) {
+            scheduleRedetect(entry);
+        }
+    }
+
+    private static boolean isMarker(String name) {
+        return MARKER_FILES.contains(name) || name.startsWith("next.config.");
+    }
+
+    private void scheduleRedetect(WatchedProject entry) {
+        // Restart the quiet period on every burst, npm install touches package.json repeatedly
+        synchronized (entry) {
+            if (entry.pendingRedetect != null) {
+                entry.pendingRedetect.cancel(false);
+            }
+            try {
+                entry.pendingRedetect = debouncer.schedule(() -> redetect(entry), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // Shutting down
+            }
+        }
+    }
+
+    private void redetect(WatchedProject entry) {
+        if (watched.get(entry.project.getId()) != entry) {
+            return;
+        }
+
+        String path = entry.project.getPath();
+        ProjectDescriptor.invalidate(path);
+        ProjectType detected = detectionService.detectProjectType(path);
+        ProjectType current = entry.project.getType();
+
+        if (detected != ProjectType.UNKNOWN && detected != current) {
+            logger.info("Project {} changed type: {} -> {}", entry.project.getName(), current, detected);
+            listener.onProjectTypeChanged(entry.project, detected);
+        }
+    }
+
+    private static class WatchedProject {
+        private final Project project;
+        private final Path root;
+        private ScheduledFuture<?> pendingRedetect;
+
+        WatchedProject(Project project) {
+            this.project = project;
+            this.root = Paths.get(project.getPath()).toAbsolutePath();
+        }
+    }
+
+    /**
+     * Receives type changes from the watcher thread
+     */
+    public interface Listener {
+        void onProjectTypeChanged(Project project, ProjectType newType);
+    }
+}
@@ -0,0 +1,386 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Waits for started apps to answer on their published ports. All probes share
+ * one selector thread; each probe reconnects with exponential backoff until
+ * the app answers or its timeout runs out.
+ *
+ * A TCP connect alone proves little, Docker's port proxy accepts connections
+ * before the app listens and then drops them. TCP probes therefore count as
+ * ready only if the connection stays open for a moment, HTTP probes once a
+ * response status line other than 5xx arrives.
+ */
+public class ReadinessProber implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReadinessProber.class);
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long ATTEMPT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+    // How long a TCP connection must survive to count as accepted by the app
+    private static final long TCP_SETTLE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int MAX_STATUS_LINE_BYTES = 1024;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Probe> submitted = new ConcurrentLinkedQueue<>();
+    // Probes between attempts, by next attempt time, only touched by the selector thread
+    private final PriorityQueue<Probe> waiting = new PriorityQueue<>(Comparator.comparingLong(p -> p.nextAttemptAt));
+    private volatile boolean closed;
+
+    public ReadinessProber() throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, "readiness-prober");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Probe a port on the local host until it answers
+     * @param name what is probed, for log messages
+     * @param port the host port
+     * @param check the kind of probe
+     * @param timeoutMillis how long to keep trying
+     * @param startNanos System.nanoTime() the wait is measured from
+     * @param wanted checked before every attempt, the probe is abandoned once it returns false
+     * @return completes with the outcome, never exceptionally
+     */
+    public CompletableFuture<Result> probe(String name, int port, Project.ReadinessCheck check,
+                                           long timeoutMillis, long startNanos, BooleanSupplier wanted) {
+        Probe probe = new Probe(name, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), check,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), startNanos, wanted);
+        if (closed) {
+            probe.future.complete(new Result(Result.Outcome.ABANDONED, 0, 0, "Prober closed"));
+            return probe.future;
+        }
+        submitted.add(probe);
+        selector.wakeup();
+        return probe.future;
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                long now = System.nanoTime();
+                Probe probe;
+                while ((probe = submitted.poll()) != null) {
+                    probe.nextAttemptAt = now;
+                    waiting.add(probe);
+                }
+                while (!waiting.isEmpty() && waiting.peek().nextAttemptAt <= now) {
+                    startAttempt(waiting.poll(), now);
+                }
+                expireAttempts(now);
+
+                selector.select(TimeUnit.NANOSECONDS.toMillis(nextWakeup(System.nanoTime())) + 1);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        handle(key, (Probe) key.attachment());
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (!closed) {
+                logger.error("Readiness prober stopped: {}", e.getMessage(), e);
+            }
+        } finally {
+            abandonAll();
+        }
+    }
+
+    private long nextWakeup(long now) {
+        long next = Long.MAX_VALUE;
+        if (!waiting.isEmpty()) {
+            next = waiting.peek().nextAttemptAt;
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid()) {
+                next = Math.min(next, ((Probe) key.attachment()).attemptDeadline);
+            }
+        }
+        // Nothing to wait for, sleep until a probe is submitted
+        return next == Long.MAX_VALUE ? TimeUnit.HOURS.toNanos(1) : Math.max(0, next - now);
+    }
+
+    private void startAttempt(Probe probe, long now) {
+        if (!probe.wanted.getAsBoolean()) {
+            complete(probe, Result.Outcome.ABANDONED, now);
+            return;
+        }
+        if (now >= probe.deadline) {
+            complete(probe, Result.Outcome.TIMED_OUT, now);
+            return;
+        }
+        probe.attempts++;
+        probe.attemptDeadline = Math.min(now + ATTEMPT_TIMEOUT_NANOS, probe.deadline);
+        try {
+            SocketChannel channel = SocketChannel.open();
+            probe.channel = channel;
+            channel.configureBlocking(false);
+            if (channel.connect(probe.address)) {
+                channel.register(selector, 0, probe);
+                onConnected(probe, now);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, probe);
+            }
+        } catch (IOException e) {
+            retry(probe, describe(e), now);
+        }
+    }
+
+    private void handle(SelectionKey key, Probe probe) {
+        long now = System.nanoTime();
+        try {
+            if (key.isConnectable()) {
+                probe.channel.finishConnect();
+                onConnected(probe, now);
+            } else if (key.isWritable()) {
+                probe.channel.write(probe.request);
+                if (!probe.request.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } else if (key.isReadable()) {
+                onReadable(probe, now);
+            }
+        } catch (IOException e) {
+            retry(probe, describe(e), now);
+        }
+    }
+
+    private void onConnected(Probe probe, long now) {
+        SelectionKey key = probe.channel.keyFor(selector);
+        if (probe.check == Project.ReadinessCheck.TCP) {
+            // The port proxy closes right away when nothing listens behind it
+            probe.attemptDeadline = Math.min(now + TCP_SETTLE_NANOS, probe.deadline);
+            key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+        String request = "GET / HTTP/1.1\r\nHost: localhost:" + probe.address.getPort()
+                + "\r\nUser-Agent: docker-project-manager\r\nConnection: close\r\n\r\n";
+        probe.request = ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII));
+        probe.response = ByteBuffer.allocate(MAX_STATUS_LINE_BYTES);
+        key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    private void onReadable(Probe probe, long now) throws IOException {
+        if (probe.check == Project.ReadinessCheck.TCP) {
+            int read = probe.channel.read(ByteBuffer.allocate(256));
+            if (read < 0) {
+                retry(probe, "connection closed", now);
+            } else {
+                // The app spoke first, it is certainly listening
+                complete(probe, Result.Outcome.READY, now);
+            }
+            return;
+        }
+
+        int read = probe.channel.read(probe.response);
+        String received = new String(probe.response.array(), 0, probe.response.position(), StandardCharsets.US_ASCII);
+        int lineEnd = received.indexOf("\r\n");
+        if (lineEnd < 0 && read >= 0 && probe.response.hasRemaining()) {
+            return;
+        }
+        if (received.isEmpty()) {
+            retry(probe, "connection closed without a response", now);
+            return;
+        }
+
+        String statusLine = lineEnd >= 0 ? received.substring(0, lineEnd) : received;
+        int status = parseStatus(statusLine);
+        if (status >= 500) {
+            retry(probe, "HTTP " + status, now);
+        } else {
+            // Any other answer, even a 404 or a non-HTTP one, means the app is serving
+            complete(probe, Result.Outcome.READY, now);
+        }
+    }
+
+    private static int parseStatus(String statusLine) {
+        String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void expireAttempts(long now) {
+        for (SelectionKey key : selector.keys().toArray(new SelectionKey[0])) {
+            // Keys of closed connections linger until the next select
+            Probe probe = (Probe) key.attachment();
+            if (!key.isValid() || probe.attemptDeadline > now) {
+                continue;
+            }
+            // A TCP connection that survived the settle time was accepted by the app
+            if (probe.check == Project.ReadinessCheck.TCP && probe.channel.isConnected()) {
+                complete(probe, Result.Outcome.READY, now);
+            } else {
+                retry(probe, "no answer within " + TimeUnit.NANOSECONDS.toMillis(ATTEMPT_TIMEOUT_NANOS) + "ms", now);
+            }
+        }
+    }
+
+    private void retry(Probe probe, String error, long now) {
+        closeChannel(probe);
+        probe.lastError = error;
+        if (now >= probe.deadline) {
+            complete(probe, Result.Outcome.TIMED_OUT, now);
+            return;
+        }
+        long next = Math.min(now + probe.backoff, probe.deadline);
+        probe.backoff = Math.min(probe.backoff * 2, MAX_BACKOFF_NANOS);
+        logger.debug("{} not ready ({}), retrying in {}ms", probe.name, error,
+                TimeUnit.NANOSECONDS.toMillis(next - now));
+        probe.nextAttemptAt = next;
+        waiting.add(probe);
+    }
+
+    private void complete(Probe probe, Result.Outcome outcome, long now) {
+        closeChannel(probe);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - probe.startNanos);
+        String detail = outcome == Result.Outcome.TIMED_OUT ? probe.lastError : null;
+        probe.future.complete(new Result(outcome, elapsedMillis, probe.attempts, detail));
+    }
+
+    private static void closeChannel(Probe probe) {
+        if (probe.channel == null) {
+            return;
+        }
+        try {
+            probe.channel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close probe connection: {}", e.getMessage());
+        }
+        probe.channel = null;
+    }
+
+    private void abandonAll() {
+        long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid()) {
+                complete((Probe) key.attachment(), Result.Outcome.ABANDONED, now);
+            }
+        }
+        for (Probe probe : waiting) {
+            complete(probe, Result.Outcome.ABANDONED, now);
+        }
+        Probe probe;
+        while ((probe = submitted.poll()) != null) {
+            complete(probe, Result.Outcome.ABANDONED, now);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close selector: {}", e.getMessage());
+        }
+    }
+
+    private static String describe(IOException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private static class Probe {
+        private final String name;
+        private final InetSocketAddress address;
+        private final Project.ReadinessCheck check;
+        private final long deadline;
+        private final long startNanos;
+        private final BooleanSupplier wanted;
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+        private SocketChannel channel;
+        private ByteBuffer request;
+        private ByteBuffer response;
+        private long nextAttemptAt;
+        private long attemptDeadline;
+        private long backoff = INITIAL_BACKOFF_NANOS;
+        private int attempts;
+        private String lastError;
+
+        Probe(String name, InetSocketAddress address, Project.ReadinessCheck check, long deadline,
+              long startNanos, BooleanSupplier wanted) {
+            this.name = name;
+            this.address = address;
+            this.check = check;
+            this.deadline = deadline;
+            this.startNanos = startNanos;
+            this.wanted = wanted;
+        }
+    }
+
+    /**
+     * How a probe ended
+     */
+    public static class Result {
+        public enum Outcome {
+            READY,
+            TIMED_OUT,
+            // The project stopped or moved on to another container first
+            ABANDONED
+        }
+
+        private final Outcome outcome;
+        private final long elapsedMillis;
+        private final int attempts;
+        private final String detail;
+
+        public Result(Outcome outcome, long elapsedMillis, int attempts, String detail) {
+            this.outcome = outcome;
+            this.elapsedMillis = elapsedMillis;
+            this.attempts = attempts;
+            this.detail = detail;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isReady() {
+            return outcome == Outcome.READY;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+}
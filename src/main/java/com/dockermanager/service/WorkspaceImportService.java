@@ -0,0 +1,198 @@
+package com.dockermanager.service;
+
+import com.dockermanager.model.Project;
+import com.dockermanager.model.ProjectType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Finds every project under a workspace directory. Directories are walked
+ * and detected on a small thread pool; a directory detected as a project is
+ * not descended into. Ports for all found projects are assigned in one batch
+ * once the walk is done.
+ */
+public class WorkspaceImportService {
+    private static final Logger logger = LoggerFactory.getLogger(WorkspaceImportService.class);
+    private static final int MAX_DEPTH = 4;
+    private static final int MAX_PARALLELISM = 8;
+    private static final Set<String> SKIPPED_DIRECTORIES = Set.of(
+            "node_modules", "dist", "build", "target", "vendor", "bower_components");
+
+    private final ProjectDetectionService detectionService;
+    private final PortManagerService portManager;
+
+    public WorkspaceImportService(ProjectDetectionService detectionService, PortManagerService portManager) {
+        this.detectionService = detectionService;
+        this.portManager = portManager;
+    }
+
+    /**
+     * Scan a workspace for projects in the background
+     * @param root the workspace directory
+     * @param existingPaths paths of projects already registered, skipped
+     * @param onProgress receives progress from the scanning threads, may be null
+     * @return the projects found, with ports assigned, not yet registered
+     */
+    public CompletableFuture<List<Project>> scan(File root, Set<String> existingPaths, Consumer<Progress> onProgress) {
+        int parallelism = Math.max(2, Math.min(MAX_PARALLELISM, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "workspace-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Scan scan = new Scan(executor, existingPaths, onProgress);
+        scan.submit(root.getAbsoluteFile(), 0);
+
+        return scan.done.thenApply(ignored -> assignPorts(scan.found)).whenComplete((projects, error) -> {
+            executor.shutdown();
+            if (error != null) {
+                logger.error("Workspace import of {} failed: {}", root, error.getMessage(), error);
+            } else {
+                logger.info("Found {} projects in {} ({} directories scanned)",
+                        projects.size(), root, scan.scanned.get());
+            }
+        });
+    }
+
+    private List<Project> assignPorts(ConcurrentLinkedQueue<Project> found) {
+        List<Project> projects = new ArrayList<>(found);
+        projects.sort(Comparator.comparing(Project::getPath));
+
+        Map<String, Integer> preferredPorts = new LinkedHashMap<>();
+        Map<String, Integer> portCounts = new HashMap<>();
+        for (Project project : projects) {
+            preferredPorts.put(project.getId(), detectionService.detectDefaultPort(project.getPath(), project.getType()));
+            portCounts.put(project.getId(), project.getPortCount());
+        }
+
+        Map<String, Integer> assigned = portManager.findAvailablePorts(preferredPorts, portCounts);
+        for (Project project : projects) {
+            project.setPort(assigned.get(project.getId()));
+        }
+        return projects;
+    }
+
+    private static boolean isSkipped(File directory) {
+        String name = directory.getName();
+        return name.startsWith(".") || SKIPPED_DIRECTORIES.contains(name);
+    }
+
+    /**
+     * State of one workspace walk
+     */
+    private class Scan {
+        private final ExecutorService executor;
+        private final Set<String> existingPaths;
+        private final Consumer<Progress> onProgress;
+        private final ConcurrentLinkedQueue<Project> found = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger scanned = new AtomicInteger();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Scan(ExecutorService executor, Set<String> existingPaths, Consumer<Progress> onProgress) {
+            this.executor = executor;
+            this.existingPaths = existingPaths;
+            this.onProgress = onProgress;
+        }
+
+        void submit(File directory, int depth) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> visit(directory, depth));
+            } catch (Exception e) {
+                pending.decrementAndGet();
+                done.completeExceptionally(e);
+            }
+        }
+
+        private void visit(File directory, int depth) {
+            try {
+                if (existingPaths.contains(directory.getPath())) {
+                    return;
+                }
+
+                ProjectType type = detectionService.detectProjectType(directory.getPath());
+                scanned.incrementAndGet();
+                if (type != ProjectType.UNKNOWN) {
+                    Project project = new Project(directory.getName(), directory.getPath(), type);
+                    found.add(project);
+                    report(project);
+                    // Sub-directories of a project belong to it
+                    return;
+                }
+                report(null);
+
+                if (depth >= MAX_DEPTH) {
+                    return;
+                }
+                File[] children = directory.listFiles(File::isDirectory);
+                if (children != null) {
+                    for (File child : children) {
+                        if (!isSkipped(child)) {
+                            submit(child, depth + 1);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to scan {}: {}", directory, e.getMessage());
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    done.complete(null);
+                }
+            }
+        }
+
+        private void report(Project project) {
+            if (onProgress != null) {
+                onProgress.accept(new Progress(scanned.get(), found.size(), project));
+            }
+        }
+    }
+
+    /**
+     * Snapshot of a running scan
+     */
+    public static class Progress {
+        private final int scannedDirectories;
+        private final int foundProjects;
+        private final Project latestProject;
+
+        public Progress(int scannedDirectories, int foundProjects, Project latestProject) {
+            this.scannedDirectories = scannedDirectories;
+            this.foundProjects = foundProjects;
+            this.latestProject = latestProject;
+        }
+
+        public int getScannedDirectories() {
+            return scannedDirectories;
+        }
+
+        public int getFoundProjects() {
+            return foundProjects;
+        }
+
+        /**
+         * The project found by this step, null if the step found none
+         */
+        public Project getLatestProject() {
+            return latestProject;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.dockermanager.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes a Docker build context as a tar stream, file by file, so the
+ * archive never has to exist in memory or on disk. The file set is the
+ * same one the context hasher fingerprints, plus the Dockerfile.
+ */
+public class BuildContextArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(BuildContextArchiver.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MODE_FILE = 0100644;
+    private static final int MODE_EXECUTABLE = 0100755;
+
+    /**
+     * Stream a build context as a tar archive
+     * @param contextPath the build context directory
+     * @param out receives the archive, not closed
+     * @param onProgress receives the total bytes written so far, may be null
+     * @return number of files archived
+     */
+    public static int writeContext(String contextPath, OutputStream out, LongConsumer onProgress) throws IOException {
+        Path root = Paths.get(contextPath);
+        DockerIgnore ignore = DockerIgnore.load(contextPath);
+        List<String> files = BuildContextHasher.listContextFiles(root, ignore);
+
+        // The hasher leaves the Dockerfile out, the daemon needs it
+        if (Files.isRegularFile(root.resolve("Dockerfile"))) {
+            files.add(0, "Dockerfile");
+        }
+
+        CountingOutputStream counter = new CountingOutputStream(out, onProgress);
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(counter);
+        tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (String relative : files) {
+            Path file = root.resolve(relative);
+
+            if (Files.isSymbolicLink(file)) {
+                TarArchiveEntry entry = new TarArchiveEntry(relative, TarConstants.LF_SYMLINK);
+                entry.setLinkName(Files.readSymbolicLink(file).toString().replace('\\', '/'));
+                tar.putArchiveEntry(entry);
+                tar.closeArchiveEntry();
+                continue;
+            }
+
+            TarArchiveEntry entry = new TarArchiveEntry(relative);
+            entry.setSize(Files.size(file));
+            entry.setModTime(Files.getLastModifiedTime(file).toMillis());
+            entry.setMode(Files.isExecutable(file) ? MODE_EXECUTABLE : MODE_FILE);
+            tar.putArchiveEntry(entry);
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    tar.write(buffer, 0, read);
+                }
+            }
+            tar.closeArchiveEntry();
+        }
+
+        // Writes the end-of-archive blocks without closing the caller's stream
+        tar.finish();
+        tar.flush();
+        logger.debug("Archived {} files ({} bytes) from {}", files.size(), counter.count, contextPath);
+        return files.size();
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final LongConsumer onProgress;
+        private long count;
+
+        CountingOutputStream(OutputStream out, LongConsumer onProgress) {
+            super(out);
+            this.onProgress = onProgress;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            advance(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            advance(len);
+        }
+
+        private void advance(int bytes) {
+            count += bytes;
+            if (onProgress != null) {
+                onProgress.accept(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.dockermanager.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes content fingerprints of Docker build contexts so images can be
+ * looked up by what they were built from instead of by project ID.
+ */
+public class BuildContextHasher {
+    private static final Logger logger = LoggerFactory.getLogger(BuildContextHasher.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Hash every file of a build context that Docker would send
+     * @param contextPath the build context directory
+     * @return hex SHA-256 over paths and contents, in sorted path order
+     */
+    public static String hashContext(String contextPath) throws IOException {
+        Path root = Paths.get(contextPath);
+        DockerIgnore ignore = DockerIgnore.load(contextPath);
+        List<String> files = listContextFiles(root, ignore);
+
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long totalBytes = 0;
+
+        for (String relative : files) {
+            Path file = root.resolve(relative);
+            update(digest, relative);
+
+            if (Files.isSymbolicLink(file)) {
+                update(digest, "->" + Files.readSymbolicLink(file));
+                continue;
+            }
+
+            update(digest, Long.toString(Files.size(file)));
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    totalBytes += read;
+                }
+            }
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        logger.debug("Hashed {} files ({} bytes) in {}: {}", files.size(), totalBytes, contextPath, hash);
+        return hash;
+    }
+
+    /**
+     * Cheap signature of a build context from each file's path, size and
+     * modification time, without reading contents. A context whose
+     * signature is unchanged can reuse its earlier {@link #hashContext(String)}.
+     * @param contextPath the build context directory
+     * @return hex SHA-256 over the listed file metadata
+     */
+    public static String statContext(String contextPath) throws IOException {
+        Path root = Paths.get(contextPath);
+        List<String> files = listContextFiles(root, DockerIgnore.load(contextPath));
+
+        MessageDigest digest = newDigest();
+        for (String relative : files) {
+            Path file = root.resolve(relative);
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            update(digest, relative);
+            update(digest, Long.toString(attrs.size()));
+            update(digest, Long.toString(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Combine a context hash with the Dockerfile it is built with
+     * @param contextHash result of {@link #hashContext(String)}
+     * @param dockerfile the Dockerfile text
+     * @return hex SHA-256 identifying the resulting image
+     */
+    public static String fingerprint(String contextHash, String dockerfile) {
+        MessageDigest digest = newDigest();
+        update(digest, contextHash);
+        update(digest, dockerfile != null ? dockerfile : "");
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * List the files Docker would send for a context, relative to its root,
+     * with '/' separators and in sorted order. The Dockerfile itself is left
+     * out since callers hash its text separately.
+     */
+    static List<String> listContextFiles(Path root, DockerIgnore ignore) throws IOException {
+        List<String> files = new ArrayList<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(root)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String relative = relativize(root, dir);
+                if (ignore.isExcluded(relative) && !ignore.hasExceptions()) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String relative = relativize(root, file);
+                if (relative.equals("Dockerfile") || ignore.isExcluded(relative)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (attrs.isRegularFile() || Files.isSymbolicLink(file)) {
+                    files.add(relative);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                logger.debug("Skipping unreadable path {}: {}", file, exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Collections.sort(files);
+        return files;
+    }
+
+    private static String relativize(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
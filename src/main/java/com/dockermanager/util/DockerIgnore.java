@@ -0,0 +1,188 @@
+package com.dockermanager.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed .dockerignore rules, matched the way the Docker CLI does:
+ * later rules win, "!" re-includes, and a rule matching a directory
+ * also excludes everything below it.
+ */
+public class DockerIgnore {
+    public static final String FILE_NAME = ".dockerignore";
+
+    private final List<Rule> rules;
+    private final boolean hasExceptions;
+
+    private DockerIgnore(List<Rule> rules) {
+        this.rules = rules;
+        this.hasExceptions = rules.stream().anyMatch(r -> r.exception);
+    }
+
+    /**
+     * Load the .dockerignore of a build context
+     * @param contextPath the build context directory
+     * @return the parsed rules, empty if the file does not exist
+     */
+    public static DockerIgnore load(String contextPath) {
+        Path file = new File(contextPath, FILE_NAME).toPath();
+        if (!Files.isRegularFile(file)) {
+            return empty();
+        }
+
+        try {
+            return parse(Files.readString(file));
+        } catch (IOException e) {
+            return empty();
+        }
+    }
+
+    public static DockerIgnore empty() {
+        return new DockerIgnore(Collections.emptyList());
+    }
+
+    public static DockerIgnore parse(String content) {
+        List<Rule> rules = new ArrayList<>();
+        for (String rawLine : content.split("\\R")) {
+            String line = rawLine.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            boolean exception = line.startsWith("!");
+            if (exception) {
+                line = line.substring(1).trim();
+            }
+
+            line = normalize(line);
+            if (line.isEmpty()) {
+                continue;
+            }
+            rules.add(new Rule(toRegex(line), exception));
+        }
+        return new DockerIgnore(rules);
+    }
+
+    /**
+     * Check if a path should be left out of the build context
+     * @param relativePath path relative to the context root, using '/' separators
+     * @return true if the path is excluded
+     */
+    public boolean isExcluded(String relativePath) {
+        if (rules.isEmpty()) {
+            return false;
+        }
+
+        boolean excluded = false;
+        for (Rule rule : rules) {
+            if (rule.exception != excluded) {
+                // Rule cannot change the current outcome
+                continue;
+            }
+            if (rule.matches(relativePath)) {
+                excluded = !rule.exception;
+            }
+        }
+        return excluded;
+    }
+
+    /**
+     * Whether an excluded directory may still contain re-included files,
+     * in which case callers must descend into it instead of skipping it
+     */
+    public boolean hasExceptions() {
+        return hasExceptions;
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    private static String normalize(String pattern) {
+        String p = pattern.replace('\\', '/');
+        while (p.startsWith("/")) {
+            p = p.substring(1);
+        }
+        while (p.startsWith("./")) {
+            p = p.substring(2);
+        }
+        while (p.endsWith("/")) {
+            p = p.substring(0, p.length() - 1);
+        }
+        return p;
+    }
+
+    private static Pattern toRegex(String glob) {
+        StringBuilder regex = new StringBuilder("^");
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    // "**" spans any number of directories, including none
+                    i += 2;
+                    if (i < glob.length() && glob.charAt(i) == '/') {
+                        i++;
+                        regex.append("(?:.*/)?");
+                    } else {
+                        regex.append(".*");
+                    }
+                    continue;
+                }
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                int close = glob.indexOf(']', i + 1);
+                if (close < 0) {
+                    regex.append("\\[");
+                } else {
+                    String set = glob.substring(i + 1, close);
+                    if (set.startsWith("!") || set.startsWith("^")) {
+                        set = "^" + set.substring(1);
+                    }
+                    regex.append('[').append(set.replace("\\", "\\\\")).append(']');
+                    i = close;
+                }
+            } else if ("\\.+()|{}$^".indexOf(c) >= 0) {
+                regex.append('\\').append(c);
+            } else {
+                regex.append(c);
+            }
+            i++;
+        }
+        regex.append('$');
+        return Pattern.compile(regex.toString());
+    }
+
+    private static class Rule {
+        private final Pattern pattern;
+        private final boolean exception;
+
+        Rule(Pattern pattern, boolean exception) {
+            this.pattern = pattern;
+            this.exception = exception;
+        }
+
+        boolean matches(String relativePath) {
+            if (pattern.matcher(relativePath).matches()) {
+                return true;
+            }
+            // A rule matching any parent directory covers the path too
+            int slash = relativePath.indexOf('/');
+            while (slash > 0) {
+                if (pattern.matcher(relativePath.substring(0, slash)).matches()) {
+                    return true;
+                }
+                slash = relativePath.indexOf('/', slash + 1);
+            }
+            return false;
+        }
+    }
+}
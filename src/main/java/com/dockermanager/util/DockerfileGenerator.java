@@ -2,169 +2,157 @@ package com.dockermanager.util;
 
 import com.dockermanager.model.ProjectType;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class DockerfileGenerator {
     private static final Logger logger = LoggerFactory.getLogger(DockerfileGenerator.class);
 
     public static String generateDockerfile(String projectPath, ProjectType type, int port) {
+        return generateDockerfile(projectPath, type, port, false);
+    }
+
+    /**
+     * Generate a Dockerfile for a project
+     * @param projectPath the project directory
+     * @param type the project type
+     * @param port the application port
+     * @param buildKit emit BuildKit syntax with cached, lockfile-driven dependency installs
+     * @return the Dockerfile content, or null if the type doesn't use one
+     */
+    public static String generateDockerfile(String projectPath, ProjectType type, int port, boolean buildKit) {
         return switch (type) {
             case HTML -> generateHtmlDockerfile(projectPath, port);
-            case NODE -> generateNodeDockerfile(projectPath, port);
-            case REACT -> generateReactDockerfile(projectPath, port);
+            case NODE -> generateNodeDockerfile(projectPath, port, buildKit);
+            case REACT -> generateReactDockerfile(projectPath, port, buildKit);
             case FULLSTACK -> generateFullStackDockerfile(projectPath, port);
             default -> null;
         };
     }
 
     private static String generateHtmlDockerfile(String projectPath, int port) {
-        return """
-                FROM nginx:alpine
-                
-                # Copy all files to nginx html directory
-                COPY . /usr/share/nginx/html
-                
-                # Copy custom nginx config if exists
-                COPY nginx.conf /etc/nginx/nginx.conf 2>/dev/null || true
-                
-                EXPOSE 80
-                
-                CMD ["nginx", "-g", "daemon off;"]
-                """;
+        return render(TemplateRegistry.HTML, new HashMap<>());
     }
 
-    private static String generateNodeDockerfile(String projectPath, int port) {
-        String startCommand = detectNodeStartCommand(projectPath);
-        String nodeVersion = detectNodeVersion(projectPath);
-        
-        return String.format("""
-                FROM node:%s-alpine
-                
-                WORKDIR /app
-                
-                # Copy package files
-                COPY package*.json ./
-                
-                # Install dependencies
-                RUN npm install
-                
-                # Copy application files
-                COPY . .
-                
-                # Expose the application port
-                EXPOSE %d
-                
-                # Start the application
-                CMD [%s]
-                """, nodeVersion, port, startCommand);
+    private static String generateNodeDockerfile(String projectPath, int port, boolean buildKit) {
+        Map<String, Object> variables = nodeVariables(projectPath, buildKit);
+        variables.put("port", port);
+        variables.put("startCommand", detectNodeStartCommand(projectPath));
+        return render(TemplateRegistry.NODE, variables);
     }
 
-    private static String generateReactDockerfile(String projectPath, int port) {
-        String nodeVersion = detectNodeVersion(projectPath);
-        boolean isNextJs = isNextJsProject(projectPath);
+    private static String generateReactDockerfile(String projectPath, int port, boolean buildKit) {
+        Map<String, Object> variables = nodeVariables(projectPath, buildKit);
         
-        if (isNextJs) {
+        if (isNextJsProject(projectPath)) {
             // Next.js requires a running Node server, not static nginx
-            return String.format("""
-                    FROM node:%s-alpine
-                    
-                    WORKDIR /app
-                    
-                    # Copy package files
-                    COPY package*.json ./
-                    
-                    # Install dependencies
-                    RUN npm install
-                    
-                    # Copy source files
-                    COPY . .
-                    
-                    # Build the Next.js application
-                    RUN npm run build
-                    
-                    # Expose port
-                    EXPOSE 3000
-                    
-                    # Start Next.js in production mode
-                    CMD ["npm", "start"]
-                    """, nodeVersion);
+            return render(TemplateRegistry.NEXTJS, variables);
+        }
+        
+        // Standard React (CRA, Vite, etc.) - use static nginx
+        variables.put("buildCommand", detectReactBuildCommand(projectPath));
+        variables.put("outputDir", detectReactOutputDir(projectPath));
+        return render(TemplateRegistry.REACT, variables);
+    }
+
+    /**
+     * Variables shared by every Node-based template. In BuildKit mode the
+     * install step copies only the manifests, so its layer is reused until they
+     * change, and keeps the package manager's download cache between builds.
+     */
+    private static Map<String, Object> nodeVariables(String projectPath, boolean buildKit) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("nodeVersion", detectNodeVersion(projectPath));
+        variables.put("buildKit", buildKit);
+        if (!buildKit) {
+            return variables;
+        }
+        
+        ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+        List<String> manifests = new ArrayList<>();
+        manifests.add("package.json");
+        
+        if (descriptor.hasFile("pnpm-lock.yaml")) {
+            manifests.add("pnpm-lock.yaml");
+            variables.put("installCommand", "corepack enable && pnpm install --frozen-lockfile");
+            variables.put("cacheTarget", "/root/.local/share/pnpm/store");
+        } else if (descriptor.hasFile("yarn.lock") && isYarnBerry(descriptor)) {
+            // Yarn 2+ rejects --frozen-lockfile, and the image only ships Yarn 1
+            manifests.add("yarn.lock");
+            variables.put("installCommand", "corepack enable && yarn install --immutable");
+            variables.put("cacheTarget", "/root/.yarn/berry/cache");
+        } else if (descriptor.hasFile("yarn.lock")) {
+            manifests.add("yarn.lock");
+            variables.put("installCommand", "yarn install --frozen-lockfile");
+            variables.put("cacheTarget", "/usr/local/share/.cache/yarn");
+        } else if (descriptor.hasFile("package-lock.json")) {
+            manifests.add("package-lock.json");
+            variables.put("installCommand", "npm ci");
+            variables.put("cacheTarget", "/root/.npm");
         } else {
-            // Standard React (CRA, Vite, etc.) - use static nginx
-            String buildCommand = detectReactBuildCommand(projectPath);
-            
-            return String.format("""
-                    # Build stage
-                    FROM node:%s-alpine AS build
-                    
-                    WORKDIR /app
-                    
-                    # Copy package files
-                    COPY package*.json ./
-                    
-                    # Install dependencies
-                    RUN npm install
-                    
-                    # Copy source files
-                    COPY . .
-                    
-                    # Build the application
-                    RUN %s
-                    
-                    # Production stage
-                    FROM nginx:alpine
-                    
-                    # Copy built files from build stage
-                    COPY --from=build /app/build /usr/share/nginx/html 2>/dev/null || true
-                    COPY --from=build /app/dist /usr/share/nginx/html 2>/dev/null || true
-                    
-                    # Copy custom nginx config
-                    RUN echo 'server { listen 80; location / { root /usr/share/nginx/html; index index.html; try_files $uri $uri/ /index.html; } }' > /etc/nginx/conf.d/default.conf
-                    
-                    EXPOSE 80
-                    
-                    CMD ["nginx", "-g", "daemon off;"]
-                    """, nodeVersion, buildCommand);
+            // Without a lockfile there is nothing to install reproducibly from
+            variables.put("installCommand", "npm install");
+            variables.put("cacheTarget", "/root/.npm");
         }
+        
+        // Registry settings affect the install, so they belong to its layer
+        for (String config : new String[] {".npmrc", ".yarnrc", ".yarnrc.yml"}) {
+            if (descriptor.hasFile(config)) {
+                manifests.add(config);
+            }
+        }
+        variables.put("manifests", String.join(" ", manifests));
+        return variables;
+    }
+
+    /**
+     * Check if a project uses Yarn 2 or later, which is configured through
+     * .yarnrc.yml or pinned by the packageManager field of package.json
+     */
+    private static boolean isYarnBerry(ProjectDescriptor descriptor) {
+        if (descriptor.hasFile(".yarnrc.yml")) {
+            return true;
+        }
+        JsonObject packageJson = descriptor.getPackageJson();
+        if (packageJson == null || !packageJson.has("packageManager")
+                || !packageJson.get("packageManager").isJsonPrimitive()) {
+            return false;
+        }
+        String packageManager = packageJson.get("packageManager").getAsString();
+        return packageManager.startsWith("yarn@") && !packageManager.startsWith("yarn@1.");
+    }
+
+    private static String detectReactOutputDir(String projectPath) {
+        ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+        
+        // Vite writes to dist, Create React App to build
+        if (descriptor.hasDependency("vite") ||
+            descriptor.hasFile("vite.config.js") ||
+            descriptor.hasFile("vite.config.ts")) {
+            return "dist";
+        }
+        return "build";
     }
     
     private static boolean isNextJsProject(String projectPath) {
-        try {
-            // Check for next.config.js or next.config.ts
-            if (FileUtils.fileExists(projectPath, "next.config.js") ||
-                FileUtils.fileExists(projectPath, "next.config.ts") ||
-                FileUtils.fileExists(projectPath, "next.config.mjs")) {
-                return true;
-            }
-            
-            // Check package.json for Next.js dependency
-            if (FileUtils.fileExists(projectPath, "package.json")) {
-                String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-                JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-                
-                if (packageJson.has("dependencies")) {
-                    JsonObject deps = packageJson.getAsJsonObject("dependencies");
-                    if (deps.has("next")) {
-                        return true;
-                    }
-                }
-                
-                if (packageJson.has("devDependencies")) {
-                    JsonObject devDeps = packageJson.getAsJsonObject("devDependencies");
-                    if (devDeps.has("next")) {
-                        return true;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.debug("Error checking for Next.js: {}", e.getMessage());
+        ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+        
+        // Check for next.config.js or next.config.ts
+        if (descriptor.hasFile("next.config.js") ||
+            descriptor.hasFile("next.config.ts") ||
+            descriptor.hasFile("next.config.mjs")) {
+            return true;
         }
         
-        return false;
+        // Check package.json for Next.js dependency
+        return descriptor.hasDependency("next");
     }
 
     private static String generateFullStackDockerfile(String projectPath, int port) {
@@ -173,100 +161,43 @@ public class DockerfileGenerator {
     }
 
     public static String generateDockerCompose(String projectPath, int frontendPort, int backendPort) {
-        String backendPath = detectBackendPath(projectPath);
-        String frontendPath = detectFrontendPath(projectPath);
-        
-        return String.format("""
-                version: '3.8'
-                
-                services:
-                  backend:
-                    build:
-                      context: ./%s
-                      dockerfile: Dockerfile
-                    ports:
-                      - "%d:%d"
-                    environment:
-                      - NODE_ENV=development
-                      - PORT=%d
-                    volumes:
-                      - ./%s:/app
-                      - /app/node_modules
-                    networks:
-                      - app-network
-                
-                  frontend:
-                    build:
-                      context: ./%s
-                      dockerfile: Dockerfile
-                    ports:
-                      - "%d:%d"
-                    environment:
-                      - REACT_APP_API_URL=http://localhost:%d
-                    volumes:
-                      - ./%s:/app
-                      - /app/node_modules
-                    networks:
-                      - app-network
-                    depends_on:
-                      - backend
-                
-                networks:
-                  app-network:
-                    driver: bridge
-                """, 
-                backendPath, backendPort, backendPort, backendPort, backendPath,
-                frontendPath, frontendPort, frontendPort, backendPort, frontendPath);
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("backendPath", detectBackendPath(projectPath));
+        variables.put("frontendPath", detectFrontendPath(projectPath));
+        variables.put("backendPort", backendPort);
+        variables.put("frontendPort", frontendPort);
+        return render(TemplateRegistry.COMPOSE, variables);
     }
 
     public static String generateBackendDockerfile(String backendPath) {
-        String startCommand = detectNodeStartCommand(backendPath);
-        String nodeVersion = detectNodeVersion(backendPath);
-        
-        return String.format("""
-                FROM node:%s-alpine
-                
-                WORKDIR /app
-                
-                COPY package*.json ./
-                RUN npm install
-                
-                COPY . .
-                
-                EXPOSE 3000
-                
-                CMD [%s]
-                """, nodeVersion, startCommand);
+        return generateBackendDockerfile(backendPath, false);
+    }
+
+    public static String generateBackendDockerfile(String backendPath, boolean buildKit) {
+        Map<String, Object> variables = nodeVariables(backendPath, buildKit);
+        variables.put("startCommand", detectNodeStartCommand(backendPath));
+        return render(TemplateRegistry.BACKEND, variables);
     }
 
     public static String generateFrontendDockerfile(String frontendPath) {
-        String nodeVersion = detectNodeVersion(frontendPath);
-        
-        return String.format("""
-                FROM node:%s-alpine
-                
-                WORKDIR /app
-                
-                COPY package*.json ./
-                RUN npm install
-                
-                COPY . .
-                
-                EXPOSE 3000
-                
-                CMD ["npm", "start"]
-                """, nodeVersion);
+        return generateFrontendDockerfile(frontendPath, false);
+    }
+
+    public static String generateFrontendDockerfile(String frontendPath, boolean buildKit) {
+        return render(TemplateRegistry.FRONTEND, nodeVariables(frontendPath, buildKit));
+    }
+
+    private static String render(String template, Map<String, Object> variables) {
+        return TemplateRegistry.getInstance().render(template, variables);
     }
 
     private static String detectNodeStartCommand(String projectPath) {
         try {
-            if (FileUtils.fileExists(projectPath, "package.json")) {
-                String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-                JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-                
-                if (packageJson.has("scripts")) {
-                    JsonObject scripts = packageJson.getAsJsonObject("scripts");
-                    
+            ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+            JsonObject packageJson = descriptor.getPackageJson();
+            if (packageJson != null) {
+                JsonObject scripts = descriptor.getScripts();
+                if (scripts != null) {
                     // Priority order for start commands
                     if (scripts.has("start")) {
                         return "\"npm\", \"start\"";
@@ -285,11 +216,11 @@ public class DockerfileGenerator {
             }
             
             // Check for common entry files
-            if (FileUtils.fileExists(projectPath, "index.js")) {
+            if (descriptor.hasFile("index.js")) {
                 return "\"node\", \"index.js\"";
-            } else if (FileUtils.fileExists(projectPath, "server.js")) {
+            } else if (descriptor.hasFile("server.js")) {
                 return "\"node\", \"server.js\"";
-            } else if (FileUtils.fileExists(projectPath, "app.js")) {
+            } else if (descriptor.hasFile("app.js")) {
                 return "\"node\", \"app.js\"";
             }
             
@@ -301,21 +232,8 @@ public class DockerfileGenerator {
     }
 
     private static String detectReactBuildCommand(String projectPath) {
-        try {
-            if (FileUtils.fileExists(projectPath, "package.json")) {
-                String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-                JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-                
-                if (packageJson.has("scripts")) {
-                    JsonObject scripts = packageJson.getAsJsonObject("scripts");
-                    
-                    if (scripts.has("build")) {
-                        return "npm run build";
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.debug("Error detecting build command: {}", e.getMessage());
+        if (ProjectDescriptor.of(projectPath).hasScript("build")) {
+            return "npm run build";
         }
         
         return "npm run build";
@@ -323,10 +241,8 @@ public class DockerfileGenerator {
 
     private static String detectNodeVersion(String projectPath) {
         try {
-            if (FileUtils.fileExists(projectPath, "package.json")) {
-                String content = FileUtils.readFileContent(new File(projectPath, "package.json").getPath());
-                JsonObject packageJson = JsonParser.parseString(content).getAsJsonObject();
-                
+            JsonObject packageJson = ProjectDescriptor.of(projectPath).getPackageJson();
+            if (packageJson != null) {
                 // Check for Next.js version - newer versions require Node 20+
                 if (packageJson.has("dependencies")) {
                     JsonObject deps = packageJson.getAsJsonObject("dependencies");
@@ -370,37 +286,92 @@ public class DockerfileGenerator {
     }
 
     private static String detectBackendPath(String projectPath) {
-        if (FileUtils.directoryExists(projectPath, "backend")) {
+        ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+        if (descriptor.hasDirectory("backend")) {
             return "backend";
-        } else if (FileUtils.directoryExists(projectPath, "server")) {
+        } else if (descriptor.hasDirectory("server")) {
             return "server";
-        } else if (FileUtils.directoryExists(projectPath, "api")) {
+        } else if (descriptor.hasDirectory("api")) {
             return "api";
         }
         return "backend";
     }
 
     private static String detectFrontendPath(String projectPath) {
-        if (FileUtils.directoryExists(projectPath, "frontend")) {
+        ProjectDescriptor descriptor = ProjectDescriptor.of(projectPath);
+        if (descriptor.hasDirectory("frontend")) {
             return "frontend";
-        } else if (FileUtils.directoryExists(projectPath, "client")) {
+        } else if (descriptor.hasDirectory("client")) {
             return "client";
-        } else if (FileUtils.directoryExists(projectPath, "web")) {
+        } else if (descriptor.hasDirectory("web")) {
             return "web";
         }
         return "frontend";
     }
 
-    public static void writeDockerfile(String projectPath, String content) throws IOException {
-        String dockerfilePath = new File(projectPath, "Dockerfile").getPath();
-        FileUtils.writeFileContent(dockerfilePath, content);
-        logger.info("Generated Dockerfile at: {}", dockerfilePath);
+    /**
+     * Write a generated Dockerfile unless it already has this content
+     * @param projectPath the project directory
+     * @param content the Dockerfile content
+     * @return true if the file was written
+     */
+    public static boolean writeDockerfile(String projectPath, String content) throws IOException {
+        return writeGenerated(projectPath, "Dockerfile", content);
+    }
+
+    /**
+     * Write a generated file into a project unless it already has this
+     * content, replacing it atomically and recording it in the project's manifest
+     * @param projectPath the project directory
+     * @param relativePath the file's path inside the project directory
+     * @param content the generated content
+     * @return true if the file was written
+     */
+    public static boolean writeGenerated(String projectPath, String relativePath, String content) throws IOException {
+        String path = new File(projectPath, relativePath).getPath();
+        if (!GeneratedArtifacts.of(projectPath).write(relativePath, content)) {
+            logger.debug("{} is up to date", path);
+            return false;
+        }
+        logger.info("Generated {} at: {}", new File(relativePath).getName(), path);
+        return true;
+    }
+
+    /**
+     * Generate a .dockerignore that keeps dependencies and VCS data out of the build context
+     * @param type the project type
+     * @return the .dockerignore content
+     */
+    public static String generateDockerIgnore(ProjectType type) {
+        // Built inside the image, local build output would only be uploaded and discarded
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("excludeNodeCaches", type == ProjectType.REACT || type == ProjectType.NODE);
+        variables.put("excludeBuildOutput", type == ProjectType.REACT);
+        return render(TemplateRegistry.DOCKERIGNORE, variables);
+    }
+
+    /**
+     * Write a generated .dockerignore unless the project already has one
+     * @param projectPath the project directory
+     * @param type the project type
+     * @return true if a file was written
+     */
+    public static boolean writeDockerIgnoreIfMissing(String projectPath, ProjectType type) throws IOException {
+        File dockerIgnore = new File(projectPath, DockerIgnore.FILE_NAME);
+        if (dockerIgnore.exists()) {
+            return false;
+        }
+        return writeGenerated(projectPath, DockerIgnore.FILE_NAME, generateDockerIgnore(type));
     }
 
-    public static void writeDockerCompose(String projectPath, String content) throws IOException {
-        String composePath = new File(projectPath, "docker-compose.yml").getPath();
-        FileUtils.writeFileContent(composePath, content);
-        logger.info("Generated docker-compose.yml at: {}", composePath);
+    /**
+     * Write a generated docker-compose.yml unless it already has this content
+     * @param projectPath the project directory
+     * @param content the compose file content
+     * @return true if the file was written
+     */
+    public static boolean writeDockerCompose(String projectPath, String content) throws IOException {
+        return writeGenerated(projectPath, "docker-compose.yml", content);
     }
 }
 
@@ -2,11 +2,23 @@ package com.dockermanager.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
 
 public class FileUtils {
+    // What a plain write gives new files under the usual umask
+    private static final Set<PosixFilePermission> DEFAULT_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
     
     public static boolean fileExists(String directory, String fileName) {
         File file = new File(directory, fileName);
@@ -29,6 +41,44 @@ public class FileUtils {
         Files.writeString(path, content);
     }
 
+    /**
+     * Replace a file's content so readers see either the old or the new
+     * version, never a partial write
+     * @param path the file to replace
+     * @param content the new content
+     */
+    public static void writeFileAtomically(Path path, String content) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        // Hidden, so it doesn't show up in the user's project while it exists
+        Path temp = Files.createTempFile(parent, "." + path.getFileName() + ".", ".tmp");
+        
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            
+            // Temp files are owner-only, the replacement keeps the permissions of the file it replaces
+            PosixFileAttributeView posix = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+            if (posix != null) {
+                posix.setPermissions(Files.exists(path)
+                        ? Files.getPosixFilePermissions(path) : DEFAULT_PERMISSIONS);
+            }
+            
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     public static String getFileName(String path) {
         File file = new File(path);
         return file.getName();
@@ -0,0 +1,146 @@
+package com.dockermanager.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manifest of the files generated into one project directory, with the
+ * content hash, size and modification time of each as last written. A file
+ * is only rewritten when its generated content differs from what is on
+ * disk, so repeated starts of an unchanged project touch nothing.
+ * Manifests live outside the project, in ~/.docker-project-manager/generated.
+ */
+public class GeneratedArtifacts {
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedArtifacts.class);
+    private static final String MANIFEST_DIR = System.getProperty("user.home") + File.separator
+            + ".docker-project-manager" + File.separator + "generated";
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final Map<String, GeneratedArtifacts> manifests = new ConcurrentHashMap<>();
+
+    private final Path projectRoot;
+    private final Path manifestFile;
+    private Manifest manifest;
+
+    private GeneratedArtifacts(Path projectRoot) {
+        this.projectRoot = projectRoot;
+        this.manifestFile = Paths.get(MANIFEST_DIR).resolve(sha256(projectRoot.toString()).substring(0, 16) + ".json");
+        load();
+    }
+
+    /**
+     * Get the manifest of a project directory
+     * @param projectPath the project directory
+     * @return the manifest, loaded from disk on first use
+     */
+    public static GeneratedArtifacts of(String projectPath) {
+        Path root = Paths.get(projectPath).toAbsolutePath().normalize();
+        return manifests.computeIfAbsent(root.toString(), key -> new GeneratedArtifacts(root));
+    }
+
+    private void load() {
+        manifest = new Manifest(projectRoot.toString());
+        if (!Files.exists(manifestFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(manifestFile)) {
+            Manifest loaded = gson.fromJson(reader, Manifest.class);
+            // Two roots hashing to the same name must not share entries
+            if (loaded != null && loaded.artifacts != null && projectRoot.toString().equals(loaded.projectPath)) {
+                manifest = loaded;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to load generated file manifest {}: {}", manifestFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Write a generated file unless it already has this content
+     * @param relativePath the file's path inside the project directory
+     * @param content the generated content
+     * @return true if the file was written
+     */
+    public synchronized boolean write(String relativePath, String content) throws IOException {
+        Path file = projectRoot.resolve(relativePath);
+        String hash = sha256(content);
+        Artifact recorded = manifest.artifacts.get(relativePath);
+
+        // Same content as last time and the file is as we left it, no need to read it
+        if (recorded != null && hash.equals(recorded.sha256) && matches(file, recorded)) {
+            return false;
+        }
+
+        if (Files.isRegularFile(file) && hash.equals(sha256(Files.readString(file)))) {
+            record(relativePath, file, hash);
+            return false;
+        }
+
+        FileUtils.writeFileAtomically(file, content);
+        record(relativePath, file, hash);
+        return true;
+    }
+
+    private void record(String relativePath, Path file, String hash) throws IOException {
+        Artifact artifact = new Artifact();
+        artifact.sha256 = hash;
+        artifact.size = Files.size(file);
+        artifact.modified = Files.getLastModifiedTime(file).toMillis();
+        manifest.artifacts.put(relativePath, artifact);
+
+        try {
+            FileUtils.writeFileAtomically(manifestFile, gson.toJson(manifest));
+        } catch (IOException e) {
+            // Only costs a re-read of the file next time
+            logger.warn("Failed to save generated file manifest {}: {}", manifestFile, e.getMessage());
+        }
+    }
+
+    private static boolean matches(Path file, Artifact recorded) {
+        try {
+            return Files.size(file) == recorded.size
+                    && Files.getLastModifiedTime(file).toMillis() == recorded.modified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class Manifest {
+        private String projectPath;
+        private Map<String, Artifact> artifacts = new TreeMap<>();
+
+        Manifest(String projectPath) {
+            this.projectPath = projectPath;
+        }
+    }
+
+    private static class Artifact {
+        private String sha256;
+        private long size;
+        private long modified;
+    }
+}
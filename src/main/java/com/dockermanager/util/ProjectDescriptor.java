@@ -0,0 +1,205 @@
+package com.dockermanager.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything detection and Dockerfile generation need to know about a
+ * project directory, gathered with one listing of the root directory and
+ * one parse of package.json. Descriptors are cached per path and rebuilt
+ * when the root directory or package.json changes.
+ */
+public class ProjectDescriptor {
+    private static final Logger logger = LoggerFactory.getLogger(ProjectDescriptor.class);
+    private static final String PACKAGE_JSON = "package.json";
+    private static final Map<String, ProjectDescriptor> cache = new ConcurrentHashMap<>();
+
+    private final String projectPath;
+    private final Set<String> files;
+    private final Set<String> directories;
+    private final boolean hasPackageJson;
+    private final JsonObject packageJson;
+    private final long rootModified;
+    private final long packageJsonModified;
+    private final long packageJsonSize;
+
+    private ProjectDescriptor(String projectPath) {
+        this.projectPath = projectPath;
+        File root = new File(projectPath);
+        File packageFile = new File(root, PACKAGE_JSON);
+
+        // Capture the stamps first so a change during the scan forces a rescan
+        this.rootModified = root.lastModified();
+        this.packageJsonModified = packageFile.lastModified();
+        this.packageJsonSize = packageFile.length();
+
+        this.files = new HashSet<>();
+        this.directories = new HashSet<>();
+        File[] entries = root.listFiles();
+        if (entries != null) {
+            for (File entry : entries) {
+                if (entry.isDirectory()) {
+                    directories.add(entry.getName());
+                } else if (entry.isFile()) {
+                    files.add(entry.getName());
+                }
+            }
+        }
+
+        this.hasPackageJson = files.contains(PACKAGE_JSON);
+        this.packageJson = hasPackageJson ? parsePackageJson(packageFile) : null;
+    }
+
+    /**
+     * Get the descriptor of a project directory, scanning it only if it changed
+     * @param projectPath the project directory
+     * @return the descriptor
+     */
+    public static ProjectDescriptor of(String projectPath) {
+        String key = new File(projectPath).getAbsolutePath();
+        ProjectDescriptor cached = cache.get(key);
+        if (cached != null && cached.isCurrent()) {
+            return cached;
+        }
+
+        ProjectDescriptor descriptor = new ProjectDescriptor(key);
+        cache.put(key, descriptor);
+        return descriptor;
+    }
+
+    /**
+     * Drop the cached descriptor of a directory
+     * @param projectPath the project directory
+     */
+    public static void invalidate(String projectPath) {
+        cache.remove(new File(projectPath).getAbsolutePath());
+    }
+
+    private boolean isCurrent() {
+        File root = new File(projectPath);
+        File packageFile = new File(root, PACKAGE_JSON);
+        return root.lastModified() == rootModified
+                && packageFile.lastModified() == packageJsonModified
+                && packageFile.length() == packageJsonSize;
+    }
+
+    private static JsonObject parsePackageJson(File packageFile) {
+        try {
+            JsonElement element = JsonParser.parseString(FileUtils.readFileContent(packageFile.getPath()));
+            if (element.isJsonObject()) {
+                return element.getAsJsonObject();
+            }
+        } catch (Exception e) {
+            logger.debug("Error reading package.json at {}: {}", packageFile, e.getMessage());
+        }
+        return null;
+    }
+
+    public String getProjectPath() {
+        return projectPath;
+    }
+
+    /**
+     * Check if the project root contains a regular file
+     * @param name the file name
+     * @return true if the file exists
+     */
+    public boolean hasFile(String name) {
+        return files.contains(name);
+    }
+
+    /**
+     * Check if the project root contains a directory
+     * @param name the directory name
+     * @return true if the directory exists
+     */
+    public boolean hasDirectory(String name) {
+        return directories.contains(name);
+    }
+
+    /**
+     * Check if any file in the project root has an extension
+     * @param suffix the extension, matched case-insensitively
+     * @return true if such a file exists
+     */
+    public boolean hasFileWithSuffix(String suffix) {
+        String lowerSuffix = suffix.toLowerCase();
+        for (String name : files) {
+            if (name.toLowerCase().endsWith(lowerSuffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(files);
+    }
+
+    public Set<String> getDirectories() {
+        return Collections.unmodifiableSet(directories);
+    }
+
+    public boolean hasPackageJson() {
+        return hasPackageJson;
+    }
+
+    /**
+     * Get the parsed package.json
+     * @return the package.json object, or null if missing or unreadable
+     */
+    public JsonObject getPackageJson() {
+        return packageJson;
+    }
+
+    /**
+     * Get the scripts section of package.json
+     * @return the scripts, or null if there are none
+     */
+    public JsonObject getScripts() {
+        return getSection("scripts");
+    }
+
+    /**
+     * Check if package.json declares a script
+     * @param name the script name
+     * @return true if the script exists
+     */
+    public boolean hasScript(String name) {
+        JsonObject scripts = getScripts();
+        return scripts != null && scripts.has(name);
+    }
+
+    /**
+     * Check if package.json lists a package in dependencies or devDependencies
+     * @param name the package name
+     * @return true if the package is a dependency
+     */
+    public boolean hasDependency(String name) {
+        JsonObject deps = getSection("dependencies");
+        JsonObject devDeps = getSection("devDependencies");
+        return (deps != null && deps.has(name)) || (devDeps != null && devDeps.has(name));
+    }
+
+    /**
+     * Get a top-level object section of package.json
+     * @param name the section name
+     * @return the section, or null if missing or not an object
+     */
+    public JsonObject getSection(String name) {
+        if (packageJson == null || !packageJson.has(name) || !packageJson.get(name).isJsonObject()) {
+            return null;
+        }
+        return packageJson.getAsJsonObject(name);
+    }
+}
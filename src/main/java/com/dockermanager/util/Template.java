@@ -0,0 +1,217 @@
+package com.dockermanager.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A template compiled once into a tree of text, variable and section nodes.
+ * Supports {{name}}, {{#if name}}...{{/if}} and {{#unless name}}...{{/unless}};
+ * a section tag alone on its line removes the whole line from the output.
+ * Nothing is escaped, the output is Dockerfile or YAML text.
+ */
+public class Template {
+    private static final Pattern NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_]*");
+
+    private final String name;
+    private final Node[] nodes;
+    private final int sizeHint;
+
+    private Template(String name, Node[] nodes, int sizeHint) {
+        this.name = name;
+        this.nodes = nodes;
+        this.sizeHint = sizeHint;
+    }
+
+    /**
+     * Parse a template
+     * @param name the template name, used in error messages
+     * @param source the template text
+     * @return the compiled template
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    public static Template compile(String name, String source) {
+        // Generated files are LF whatever the line endings of the checkout or the override
+        source = source.replace("\r\n", "\n");
+        Deque<Section> open = new ArrayDeque<>();
+        Deque<List<Node>> bodies = new ArrayDeque<>();
+        bodies.push(new ArrayList<>());
+
+        int pos = 0;
+        while (pos < source.length()) {
+            int tagStart = source.indexOf("{{", pos);
+            if (tagStart < 0) {
+                bodies.peek().add(new Text(source.substring(pos)));
+                break;
+            }
+            int tagEnd = source.indexOf("}}", tagStart + 2);
+            if (tagEnd < 0) {
+                throw error(name, source, tagStart, "unclosed tag");
+            }
+            String tag = source.substring(tagStart + 2, tagEnd).trim();
+            tagEnd += 2;
+
+            if (!tag.startsWith("#") && !tag.startsWith("/")) {
+                addText(bodies.peek(), source.substring(pos, tagStart));
+                if (!NAME.matcher(tag).matches()) {
+                    throw error(name, source, tagStart, "bad variable name '" + tag + "'");
+                }
+                bodies.peek().add(new Variable(tag));
+                pos = tagEnd;
+                continue;
+            }
+
+            // Section tags on a line of their own take the line with them
+            int textEnd = tagStart;
+            int lineStart = source.lastIndexOf('\n', tagStart - 1) + 1;
+            if (lineStart >= pos && source.substring(lineStart, tagStart).isBlank()) {
+                int lineEnd = standaloneLineEnd(source, tagEnd);
+                if (lineEnd >= 0) {
+                    textEnd = lineStart;
+                    tagEnd = lineEnd;
+                }
+            }
+            addText(bodies.peek(), source.substring(pos, textEnd));
+            pos = tagEnd;
+
+            if (tag.startsWith("#")) {
+                String[] parts = tag.substring(1).trim().split("\\s+");
+                boolean inverted = parts[0].equals("unless");
+                if (parts.length != 2 || !(inverted || parts[0].equals("if")) || !NAME.matcher(parts[1]).matches()) {
+                    throw error(name, source, tagStart, "bad section '" + tag + "'");
+                }
+                open.push(new Section(parts[0], parts[1], inverted, null));
+                bodies.push(new ArrayList<>());
+            } else {
+                String keyword = tag.substring(1).trim();
+                if (open.isEmpty() || !open.peek().keyword.equals(keyword)) {
+                    throw error(name, source, tagStart, "unexpected '" + tag + "'");
+                }
+                Section section = open.pop();
+                Node[] body = bodies.pop().toArray(new Node[0]);
+                bodies.peek().add(new Section(section.keyword, section.variable, section.inverted, body));
+            }
+        }
+
+        if (!open.isEmpty()) {
+            throw new IllegalArgumentException("Template " + name + ": unclosed {{#" + open.peek().keyword
+                    + " " + open.peek().variable + "}}");
+        }
+        return new Template(name, bodies.pop().toArray(new Node[0]), source.length());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Render the template
+     * @param variables values by name, missing variables render as nothing
+     * @return the rendered text
+     */
+    public String render(Map<String, ?> variables) {
+        StringBuilder out = new StringBuilder(sizeHint + sizeHint / 4);
+        renderAll(nodes, variables, out);
+        return out.toString();
+    }
+
+    private static void renderAll(Node[] nodes, Map<String, ?> variables, StringBuilder out) {
+        for (Node node : nodes) {
+            node.render(variables, out);
+        }
+    }
+
+    private static int standaloneLineEnd(String source, int from) {
+        int i = from;
+        while (i < source.length() && (source.charAt(i) == ' ' || source.charAt(i) == '\t')) {
+            i++;
+        }
+        if (i == source.length()) {
+            return i;
+        }
+        if (source.startsWith("\r\n", i)) {
+            return i + 2;
+        }
+        return source.charAt(i) == '\n' ? i + 1 : -1;
+    }
+
+    private static void addText(List<Node> body, String text) {
+        if (!text.isEmpty()) {
+            body.add(new Text(text));
+        }
+    }
+
+    private static IllegalArgumentException error(String name, String source, int offset, String message) {
+        int line = 1;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return new IllegalArgumentException("Template " + name + " line " + line + ": " + message);
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            return false;
+        }
+        return !(value instanceof CharSequence) || ((CharSequence) value).length() > 0;
+    }
+
+    private interface Node {
+        void render(Map<String, ?> variables, StringBuilder out);
+    }
+
+    private static class Text implements Node {
+        private final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(Map<String, ?> variables, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private static class Variable implements Node {
+        private final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void render(Map<String, ?> variables, StringBuilder out) {
+            Object value = variables.get(name);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+    }
+
+    private static class Section implements Node {
+        private final String keyword;
+        private final String variable;
+        private final boolean inverted;
+        private final Node[] body;
+
+        Section(String keyword, String variable, boolean inverted, Node[] body) {
+            this.keyword = keyword;
+            this.variable = variable;
+            this.inverted = inverted;
+            this.body = body;
+        }
+
+        @Override
+        public void render(Map<String, ?> variables, StringBuilder out) {
+            if (isTruthy(variables.get(variable)) != inverted) {
+                renderAll(body, variables, out);
+            }
+        }
+    }
+}
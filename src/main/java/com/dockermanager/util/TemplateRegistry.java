@@ -0,0 +1,152 @@
+package com.dockermanager.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled Dockerfile, compose and .dockerignore templates. The built-in
+ * templates ship in /templates on the classpath; a file with the same name in
+ * ~/.docker-project-manager/templates replaces one. Rendered output is cached
+ * by template and variables, and the variables are derived from the cached
+ * project descriptor, so an unchanged project renders from the cache.
+ */
+public class TemplateRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateRegistry.class);
+    private static final String OVERRIDE_DIR = System.getProperty("user.home") + File.separator
+            + ".docker-project-manager" + File.separator + "templates";
+    private static final int MAX_CACHED_RENDERS = 256;
+
+    public static final String HTML = "html.Dockerfile";
+    public static final String NODE = "node.Dockerfile";
+    public static final String REACT = "react.Dockerfile";
+    public static final String NEXTJS = "nextjs.Dockerfile";
+    public static final String BACKEND = "backend.Dockerfile";
+    public static final String FRONTEND = "frontend.Dockerfile";
+    public static final String COMPOSE = "docker-compose.yml";
+    public static final String DOCKERIGNORE = "dockerignore";
+    private static final List<String> TEMPLATE_NAMES = List.of(
+            HTML, NODE, REACT, NEXTJS, BACKEND, FRONTEND, COMPOSE, DOCKERIGNORE);
+
+    private static volatile TemplateRegistry instance;
+
+    private final Map<String, Template> templates;
+    private final Map<RenderKey, String> renders = new ConcurrentHashMap<>();
+
+    private TemplateRegistry(Map<String, Template> templates) {
+        this.templates = templates;
+    }
+
+    /**
+     * Get the shared registry, compiling the templates on first use
+     * @return the registry
+     */
+    public static TemplateRegistry getInstance() {
+        TemplateRegistry registry = instance;
+        if (registry == null) {
+            synchronized (TemplateRegistry.class) {
+                registry = instance;
+                if (registry == null) {
+                    registry = load(Paths.get(OVERRIDE_DIR));
+                    instance = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    private static TemplateRegistry load(Path overrideDir) {
+        Map<String, Template> templates = new HashMap<>();
+        for (String name : TEMPLATE_NAMES) {
+            Template builtIn = Template.compile(name, readBuiltIn(name));
+            templates.put(name, builtIn);
+
+            Path override = overrideDir.resolve(name);
+            if (!Files.isRegularFile(override)) {
+                continue;
+            }
+            try {
+                templates.put(name, Template.compile(name, Files.readString(override)));
+                logger.info("Using template override: {}", override);
+            } catch (IOException | IllegalArgumentException e) {
+                // A broken override must not stop projects from starting
+                logger.warn("Ignoring template override {}: {}", override, e.getMessage());
+            }
+        }
+        return new TemplateRegistry(templates);
+    }
+
+    private static String readBuiltIn(String name) {
+        try (InputStream in = TemplateRegistry.class.getResourceAsStream("/templates/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing built-in template: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read built-in template " + name, e);
+        }
+    }
+
+    /**
+     * Render a template, reusing the output of an earlier identical render
+     * @param name the template name
+     * @param variables values by name
+     * @return the rendered text
+     */
+    public String render(String name, Map<String, Object> variables) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown template: " + name);
+        }
+
+        RenderKey key = new RenderKey(name, variables);
+        String cached = renders.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        String rendered = template.render(variables);
+        if (renders.size() >= MAX_CACHED_RENDERS) {
+            renders.clear();
+        }
+        renders.put(key, rendered);
+        return rendered;
+    }
+
+    private static class RenderKey {
+        private final String template;
+        private final Map<String, Object> variables;
+        private final int hash;
+
+        RenderKey(String template, Map<String, Object> variables) {
+            this.template = template;
+            this.variables = new HashMap<>(variables);
+            this.hash = 31 * template.hashCode() + this.variables.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RenderKey)) {
+                return false;
+            }
+            RenderKey key = (RenderKey) other;
+            return hash == key.hash && template.equals(key.template) && variables.equals(key.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}